@@ -2,6 +2,7 @@ plugins {
     java
     application
     id("org.openjfx.javafxplugin") version "0.1.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -22,3 +23,35 @@ javafx {
 application {
     mainClass.set("de.erind.tictactoe.MainApp")
 }
+
+tasks.register<JavaExec>("simulate") {
+    group = "application"
+    description = "Runs headless AI self-play games (pass options with --args)."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("de.erind.tictactoe.SelfPlay")
+}
+
+tasks.register<JavaExec>("analyze") {
+    group = "application"
+    description = "Computes statistics over archived games (pass archives with --args)."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("de.erind.tictactoe.GameAnalytics")
+}
+
+tasks.register<JavaExec>("checkSearch") {
+    group = "verification"
+    description = "Checks the parallel alpha-beta search against the sequential one (pass options with --args)."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("de.erind.tictactoe.SearchCheck")
+}
+
+// Benchmarks live in src/jmh/java; run with ./gradlew jmh
+// (results in build/results/jmh, with allocation rates from the gc profiler)
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(2)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
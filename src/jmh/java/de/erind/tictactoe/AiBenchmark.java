@@ -0,0 +1,66 @@
+package de.erind.tictactoe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link TicTacToeAI#chooseMove} through the String API used by
+ * the UI, on an empty board and mid-game: EASY, and HARD once per search.
+ * The search only applies to HARD, so EASY does not take it as a parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AiBenchmark {
+
+    /** The position to move in (the AI plays whoever is to move) */
+    @State(Scope.Thread)
+    public static class Positions {
+
+        @Param({"empty", "midgame"})
+        public String position;
+
+        String[][] cells;
+        String ai;
+        String human;
+
+        @Setup
+        public void setUp() {
+            GameState game = new GameState();
+            if (position.equals("midgame")) {
+                // X center, O corner, X opposite corner; only a corner holds the draw for O
+                game.play(1, 1);
+                game.play(0, 0);
+                game.play(2, 2);
+            }
+            cells = game.getBoardCopy();
+            ai = game.isXTurn() ? "X" : "O";
+            human = game.isXTurn() ? "O" : "X";
+        }
+    }
+
+    /** Search used for HARD */
+    @State(Scope.Thread)
+    public static class HardSearch {
+
+        @Param({"TABLEBASE", "ALPHA_BETA"})
+        public TicTacToeAI.Search search;
+    }
+
+    @Benchmark
+    public int[] chooseMoveEasy(Positions p) {
+        return TicTacToeAI.chooseMove(p.cells, p.ai, p.human, TicTacToeAI.Difficulty.EASY);
+    }
+
+    @Benchmark
+    public int[] chooseMoveHard(Positions p, HardSearch s) {
+        return TicTacToeAI.chooseMove(p.cells, p.ai, p.human, TicTacToeAI.Difficulty.HARD, s.search);
+    }
+}
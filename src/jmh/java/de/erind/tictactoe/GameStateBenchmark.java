@@ -0,0 +1,94 @@
+package de.erind.tictactoe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the game engine: playing moves, finding the winning line
+ * and copying the board for the AI.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameStateBenchmark {
+
+    /** A game that fills the board; X wins the middle row with the last move */
+    private static final int[][] WINNING_GAME = {
+            {1, 1}, {0, 0}, {2, 2}, {0, 2}, {0, 1}, {2, 1}, {1, 0}, {2, 0}, {1, 2}
+    };
+
+    /** Cells of a game that X wins on the main diagonal: X 4, O 1, X 0, O 2, X 8 */
+    private static final int[] WIN_MOVES = {4, 1, 0, 2};
+    private static final int WINNING_CELL = 8;
+
+    private GameState game;
+    private GameState midGame;
+    private GameState winGame;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        game = new GameState();
+
+        // X center, O corner, X opposite corner, O corner
+        midGame = new GameState();
+        midGame.play(1, 1);
+        midGame.play(0, 0);
+        midGame.play(2, 2);
+        midGame.play(0, 2);
+
+        board = new Board(Rules.CLASSIC);
+        winGame = new GameState();
+        for (int cell : WIN_MOVES) {
+            board.makeMove(cell);
+            winGame.play(cell / GameState.SIZE, cell % GameState.SIZE);
+        }
+    }
+
+    /** Resets and plays a full game through {@link GameState#play} */
+    @Benchmark
+    public GameState.MoveResult playGame() {
+        game.reset();
+        GameState.MoveResult result = null;
+        for (int[] move : WINNING_GAME) {
+            result = game.play(move[0], move[1]);
+            if (game.isGameOver()) break;
+        }
+        return result;
+    }
+
+    /** Incremental win detection: one winning move and its take-back */
+    @Benchmark
+    public int winningMove() {
+        board.makeMove(WINNING_CELL);
+        int line = board.getWinLine();
+        board.unmakeMove();
+        return line;
+    }
+
+    /** Win detection as the UI sees it: one winning move through {@link GameState#play} and its undo */
+    @Benchmark
+    public GameState.MoveResult winningPlay() {
+        GameState.MoveResult result = winGame.play(WINNING_CELL / GameState.SIZE, WINNING_CELL % GameState.SIZE);
+        winGame.undo();
+        return result;
+    }
+
+    @Benchmark
+    public String[][] getBoardCopy() {
+        return midGame.getBoardCopy();
+    }
+
+    @Benchmark
+    public Board copyBoardTo() {
+        midGame.copyBoardTo(board);
+        return board;
+    }
+}
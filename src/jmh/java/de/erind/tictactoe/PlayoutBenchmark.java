@@ -0,0 +1,61 @@
+package de.erind.tictactoe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks complete AI-vs-AI games, driven through {@link GameState#play}
+ * the same way {@link SelfPlay} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayoutBenchmark {
+
+    @Param({"EASY", "HARD"})
+    public TicTacToeAI.Difficulty xEngine;
+
+    @Param({"EASY", "HARD"})
+    public TicTacToeAI.Difficulty oEngine;
+
+    private final GameState game = new GameState();
+    private final Board scratch = new Board(Rules.CLASSIC);
+
+    /** 7x7, 5 in a row: random playouts as used by sampling engines */
+    private final Rules largeRules = new Rules(7, 7, 5);
+    private final GameState largeGame = new GameState(largeRules);
+    private final Board largeScratch = new Board(largeRules);
+
+    private final SplitMix64 rng = new SplitMix64(42);
+
+    /** Plays one classic game to the end and returns its result */
+    @Benchmark
+    public GameState.MoveResult playout() {
+        return playout(game, scratch, xEngine, oEngine);
+    }
+
+    /** Plays one random game on the large board to the end */
+    @Benchmark
+    public GameState.MoveResult randomPlayoutLarge() {
+        return playout(largeGame, largeScratch, TicTacToeAI.Difficulty.EASY, TicTacToeAI.Difficulty.EASY);
+    }
+
+    private GameState.MoveResult playout(GameState game, Board scratch,
+                                         TicTacToeAI.Difficulty x, TicTacToeAI.Difficulty o) {
+        Rules rules = game.getRules();
+        game.reset();
+        while (true) {
+            game.copyBoardTo(scratch);
+            int cell = TicTacToeAI.chooseMove(scratch, game.isXTurn() ? x : o, rng);
+            GameState.MoveResult result = game.play(rules.row(cell), rules.col(cell));
+            if (game.isGameOver()) return result;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package de.erind.tictactoe;
+
+/**
+ * Alpha-beta search over 3x3 bitboards (see {@link Bitboards}).
+ *
+ * The search is written in negamax form: every position is scored from the
+ * point of view of the player to move. Scores only depend on the position
+ * itself, not on how deep it is in the tree:
+ * - win:  1 + number of empty cells left after the winning move
+ * - loss: the negated win score
+ * - draw: 0
+ * so faster wins and slower losses are preferred, exactly like plain minimax.
+ * This also makes results safe to reuse from a {@link TranspositionTable}
+ * across searches and games.
+ *
+ * Table entries are keyed by the Zobrist hash of the canonical representative
+ * of the position (see {@link Symmetry}), so all 8 symmetric images share one
+ * slot. The hashes of all 8 images are updated incrementally on every move and
+ * the smallest one (unsigned) is used as key; stored moves are kept in the
+ * canonical frame.
+ *
+ * Moves are ordered so that cutoffs happen early:
+ * 1. an immediate win ends the search at once
+ * 2. the best move stored in the transposition table
+ * 3. moves that block an opponent's open line
+ * 4. the remaining cells: center, corners, then edges
+ */
+public final class AlphaBetaSearch {
+
+    /** Larger than any reachable score */
+    static final int INFINITY = 100;
+
+    /** Static move order: center, corners, edges */
+    static final int[] MOVE_ORDER = { 4, 0, 2, 6, 8, 1, 3, 5, 7 };
+
+    /** Number of move ordering passes (table move, blocks, the rest) */
+    private static final int PASSES = 3;
+
+    /** Zobrist keys for X / O stones under each symmetry, indexed [transform][cell] */
+    private static final long[][] X_KEYS = Symmetry.transformKeys(Zobrist.X_KEYS);
+    private static final long[][] O_KEYS = Symmetry.transformKeys(Zobrist.O_KEYS);
+
+    /** Utility class: prevent instantiation */
+    private AlphaBetaSearch() {}
+
+    /**
+     * Returns the best cell (row * 3 + col) for the player to move,
+     * or -1 if the board is full or already won.
+     *
+     * @param own   stones of the player to move
+     * @param opp   stones of the opponent
+     * @param table transposition table to consult and fill
+     */
+    public static int bestMove(int own, int opp, TranspositionTable table) {
+        int empty = ~(own | opp) & Bitboards.FULL;
+        if (empty == 0 || Bitboards.isWin(own) || Bitboards.isWin(opp)) return -1;
+
+        // Winning right away is always optimal
+        int wins = threats(own, empty);
+        if (wins != 0) return firstInOrder(wins);
+
+        // A repeated query is answered straight from the table
+        long[] hashes = newHashes(own, opp);
+        int base = hashBase(own, opp);
+        int t = canonical(hashes, base);
+        long entry = table.probe(hashes[base + t]);
+        if (entry != 0 && TranspositionTable.bound(entry) == TranspositionTable.EXACT) {
+            int move = TranspositionTable.move(entry);
+            if (move >= 0) return Symmetry.unmapCell(t, move);
+        }
+
+        long[][] ownKeys = keysToMove(own, opp);
+        int first = moveBit(entry, t);
+        int blocks = threats(opp, empty);
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int candidates = passMoves(pass, empty, first, blocks);
+            for (int cell : MOVE_ORDER) {
+                int bit = 1 << cell;
+                if ((candidates & bit) == 0) continue;
+
+                pushHashes(hashes, base, ownKeys, cell);
+                int score = -search(opp, own | bit, hashes, -INFINITY, -bestScore, table);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = cell;
+                }
+            }
+        }
+
+        table.store(hashes[base + t], bestScore, Integer.bitCount(empty),
+                TranspositionTable.EXACT, Symmetry.mapCell(t, bestMove));
+        return bestMove;
+    }
+
+    /**
+     * Returns the negamax value of a position for the player to move.
+     */
+    public static int evaluate(int own, int opp, TranspositionTable table) {
+        return search(own, opp, newHashes(own, opp), -INFINITY, INFINITY, table);
+    }
+
+    /**
+     * Fail-soft negamax with alpha-beta pruning and a transposition table.
+     * The opponent has just moved, so only the opponent can have a line.
+     * The symmetric hashes of this position must already be in {@code hashes}.
+     */
+    static int search(int own, int opp, long[] hashes, int alpha, int beta, TranspositionTable table) {
+        int empty = ~(own | opp) & Bitboards.FULL;
+        int emptyCount = Integer.bitCount(empty);
+
+        // Opponent completed a line with their last move
+        if (Bitboards.isWin(opp)) return -(1 + emptyCount);
+
+        // No moves left -> draw
+        if (empty == 0) return 0;
+
+        // We can win on this move: nothing scores higher
+        if (threats(own, empty) != 0) return emptyCount;
+
+        // Every search runs to the end of the game, so the remaining
+        // number of moves is the depth an entry must have to be reused
+        int base = hashBase(own, opp);
+        int t = canonical(hashes, base);
+        long hash = hashes[base + t];
+        long entry = table.probe(hash);
+        if (entry != 0 && TranspositionTable.depth(entry) >= emptyCount) {
+            int score = TranspositionTable.score(entry);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT -> { return score; }
+                case TranspositionTable.LOWER -> alpha = Math.max(alpha, score);
+                default -> beta = Math.min(beta, score);
+            }
+            if (alpha >= beta) return score;
+        }
+
+        int alphaOrig = alpha;
+        long[][] ownKeys = keysToMove(own, opp);
+        int first = moveBit(entry, t);
+        int blocks = threats(opp, empty);
+        int best = -INFINITY;
+        int bestMove = -1;
+
+        search:
+        for (int pass = 0; pass < PASSES; pass++) {
+            int candidates = passMoves(pass, empty, first, blocks);
+            for (int cell : MOVE_ORDER) {
+                int bit = 1 << cell;
+                if ((candidates & bit) == 0) continue;
+
+                pushHashes(hashes, base, ownKeys, cell);
+                int score = -search(opp, own | bit, hashes, -beta, -alpha, table);
+                if (score > best) {
+                    best = score;
+                    bestMove = cell;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) break search;  // cutoff
+                    }
+                }
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        table.store(hash, best, emptyCount, bound, Symmetry.mapCell(t, bestMove));
+        return best;
+    }
+
+    /**
+     * Returns the cells to try in the given ordering pass:
+     * the table move, then blocking moves, then everything else.
+     */
+    private static int passMoves(int pass, int empty, int first, int blocks) {
+        return switch (pass) {
+            case 0 -> empty & first;
+            case 1 -> empty & blocks & ~first;
+            default -> empty & ~blocks & ~first;
+        };
+    }
+
+    /**
+     * Returns the bit of the move stored in a table entry, or 0 if none.
+     * The stored move is mapped back from the canonical frame.
+     */
+    private static int moveBit(long entry, int t) {
+        int move = entry == 0 ? -1 : TranspositionTable.move(entry);
+        return move < 0 ? 0 : 1 << Symmetry.unmapCell(t, move);
+    }
+
+    /* -------------------- Symmetric hashing -------------------- */
+
+    /**
+     * Returns the symmetric Zobrist keys for the player to move.
+     * X always starts, so X is to move whenever both sides have the same count.
+     */
+    private static long[][] keysToMove(int own, int opp) {
+        return Integer.bitCount(own) == Integer.bitCount(opp) ? X_KEYS : O_KEYS;
+    }
+
+    /**
+     * Returns the hash stack slot for a position: one group of 8 hashes
+     * per number of stones on the board.
+     */
+    private static int hashBase(int own, int opp) {
+        return Integer.bitCount(own | opp) * Symmetry.COUNT;
+    }
+
+    /**
+     * Allocates the hash stack for a search and fills in the hashes
+     * of all 8 images of the given position.
+     */
+    private static long[] newHashes(int own, int opp) {
+        long[] hashes = new long[(Bitboards.CELLS + 1) * Symmetry.COUNT];
+        long[][] ownKeys = keysToMove(own, opp);
+        long[][] oppKeys = ownKeys == X_KEYS ? O_KEYS : X_KEYS;
+        int base = hashBase(own, opp);
+
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            long hash = 0;
+            for (int cell = 0; cell < Bitboards.CELLS; cell++) {
+                int bit = 1 << cell;
+                if ((own & bit) != 0) hash ^= ownKeys[t][cell];
+                if ((opp & bit) != 0) hash ^= oppKeys[t][cell];
+            }
+            hashes[base + t] = hash;
+        }
+        return hashes;
+    }
+
+    /**
+     * Writes the hashes of the position after playing the cell into the next slot.
+     */
+    private static void pushHashes(long[] hashes, int base, long[][] keys, int cell) {
+        int next = base + Symmetry.COUNT;
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            hashes[next + t] = hashes[base + t] ^ keys[t][cell];
+        }
+    }
+
+    /**
+     * Returns the transform whose image has the smallest hash (unsigned);
+     * that image is the canonical representative used as table key.
+     */
+    private static int canonical(long[] hashes, int base) {
+        int best = 0;
+        for (int t = 1; t < Symmetry.COUNT; t++) {
+            if (Long.compareUnsigned(hashes[base + t], hashes[base + best]) < 0) best = t;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the empty cells that would complete a line for the given stones.
+     */
+    static int threats(int bits, int empty) {
+        int cells = 0;
+        for (int mask : Bitboards.WIN_MASKS) {
+            int missing = mask & ~bits;
+            if ((missing & (missing - 1)) == 0 && (missing & empty) != 0) {
+                cells |= missing;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the first cell of the mask in the static move order.
+     */
+    static int firstInOrder(int cells) {
+        for (int cell : MOVE_ORDER) {
+            if ((cells & (1 << cell)) != 0) return cell;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,54 @@
+package de.erind.tictactoe;
+
+/**
+ * Bitboard helpers for the classic 3x3 board.
+ *
+ * Each player's stones are stored in a single int mask where
+ * bit (row * 3 + col) is set if the player occupies that cell.
+ * All win and draw checks become plain bitwise operations.
+ */
+public final class Bitboards {
+
+    /** Number of cells on the classic board */
+    public static final int CELLS = GameState.SIZE * GameState.SIZE;
+
+    /** Mask with every cell set (a full board) */
+    public static final int FULL = (1 << CELLS) - 1;
+
+    /** All 8 winning lines: rows, columns, then both diagonals */
+    static final int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,  // rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100,  // columns
+            0b100_010_001, 0b001_010_100                  // diagonals
+    };
+
+    /** Utility class: prevent instantiation */
+    private Bitboards() {}
+
+    /**
+     * Returns the bit for the cell at (row, col).
+     */
+    public static int bit(int row, int col) {
+        return 1 << (row * GameState.SIZE + col);
+    }
+
+    /**
+     * Returns the first winning line contained in the given player mask,
+     * or 0 if the player has no complete line.
+     */
+    public static int winningMask(int bits) {
+        for (int mask : WIN_MASKS) {
+            if ((bits & mask) == mask) {
+                return mask;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return true if the given player mask contains a complete line
+     */
+    public static boolean isWin(int bits) {
+        return winningMask(bits) != 0;
+    }
+}
@@ -0,0 +1,312 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, search-oriented board for any {@link Rules} variant.
+ *
+ * Designed for engines that walk the game tree in place:
+ * - {@link #makeMove} / {@link #unmakeMove} update everything incrementally
+ *   (bitboards, per-line counters, Zobrist hash, winner, heuristic line score)
+ * - {@link #generateMoves} writes empty cells into a caller-supplied buffer
+ *   and {@link #emptyMask} returns them as a bitmask on boards up to 64 cells
+ * so a search allocates nothing after the board is created.
+ *
+ * X always moves first; cells are numbered row * width + col.
+ */
+public final class Board {
+
+    /** Cell contents and players */
+    public static final int EMPTY = 0;
+    public static final int X = 1;
+    public static final int O = 2;
+
+    private final Rules rules;
+    private final Rules.Lines lines;
+
+    /** Zobrist keys: X stones at [cell], O stones at [cellCount + cell] */
+    private final long[] zobristKeys;
+
+    /** Cells occupied by X / O, 64 cells per word */
+    private final long[] xBits;
+    private final long[] oBits;
+
+    /** Number of X / O stones on each winning line */
+    private final int[] xLineCounts;
+    private final int[] oLineCounts;
+
+    /** Heuristic value of a line holding k stones of only one player */
+    private final long[] lineWeights;
+
+    /** Cells played so far, in order; moves[0 .. moveCount) */
+    private final int[] moves;
+    private int moveCount;
+
+    /** Line completed by the last move, or -1 */
+    private int winLine = -1;
+
+    /** Zobrist hash of the current position */
+    private long hash;
+
+    /** Sum of the line weights, X lines positive and O lines negative */
+    private long lineScore;
+
+    /** Creates an empty board for the given variant */
+    public Board(Rules rules) {
+        this.rules = rules;
+        this.lines = rules.lines();
+        this.zobristKeys = rules.zobristKeys();
+        int words = (rules.getCellCount() + 63) >>> 6;
+        xBits = new long[words];
+        oBits = new long[words];
+        xLineCounts = new int[lines.count];
+        oLineCounts = new int[lines.count];
+        moves = new int[rules.getCellCount()];
+        lineWeights = lineWeights(rules.getWinLength());
+    }
+
+    /**
+     * Weights 4^(k-1) for k stones on a line, so one more stone on a line
+     * outweighs a few lines with one stone less. Capped to keep sums in range.
+     */
+    private static long[] lineWeights(int winLength) {
+        long[] weights = new long[winLength + 1];
+        for (int k = 1; k <= winLength; k++) {
+            weights[k] = 1L << Math.min(2 * (k - 1), 40);
+        }
+        return weights;
+    }
+
+    /** Creates a copy of another board (including its move history) */
+    public Board(Board other) {
+        this(other.rules);
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this board with the contents of another board of the same variant.
+     * Does not allocate, so per-thread scratch boards can be refreshed cheaply.
+     */
+    public void copyFrom(Board other) {
+        if (!other.rules.equals(rules)) {
+            throw new IllegalArgumentException("Cannot copy a " + other.rules + " board into a " + rules + " board");
+        }
+        System.arraycopy(other.xBits, 0, xBits, 0, xBits.length);
+        System.arraycopy(other.oBits, 0, oBits, 0, oBits.length);
+        System.arraycopy(other.xLineCounts, 0, xLineCounts, 0, xLineCounts.length);
+        System.arraycopy(other.oLineCounts, 0, oLineCounts, 0, oLineCounts.length);
+        System.arraycopy(other.moves, 0, moves, 0, other.moveCount);
+        moveCount = other.moveCount;
+        winLine = other.winLine;
+        hash = other.hash;
+        lineScore = other.lineScore;
+    }
+
+    /** Clears the board. */
+    public void clear() {
+        Arrays.fill(xBits, 0);
+        Arrays.fill(oBits, 0);
+        Arrays.fill(xLineCounts, 0);
+        Arrays.fill(oLineCounts, 0);
+        moveCount = 0;
+        winLine = -1;
+        hash = 0;
+        lineScore = 0;
+    }
+
+    /* -------------------- Make / unmake -------------------- */
+
+    /**
+     * Places the stone of the player to move on the cell.
+     *
+     * @throws IllegalStateException if the game is over or the cell is occupied
+     */
+    public void makeMove(int cell) {
+        if (winLine >= 0 || !isEmpty(cell)) {
+            throw new IllegalStateException("Illegal move: " + cell);
+        }
+
+        boolean x = isXToMove();
+        (x ? xBits : oBits)[cell >>> 6] |= 1L << cell;
+        hash ^= zobristKeys[x ? cell : rules.getCellCount() + cell];
+        moves[moveCount++] = cell;
+
+        // Only lines through this cell can have been completed or changed value
+        int[] counts = x ? xLineCounts : oLineCounts;
+        int winLength = rules.getWinLength();
+        for (int i = lines.byCellStart[cell]; i < lines.byCellStart[cell + 1]; i++) {
+            int line = lines.byCell[i];
+            lineScore -= lineValue(line);
+            if (++counts[line] == winLength && winLine < 0) {
+                winLine = line;
+            }
+            lineScore += lineValue(line);
+        }
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @throws IllegalStateException if no move has been made
+     */
+    public void unmakeMove() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+
+        int cell = moves[--moveCount];
+        boolean x = isXToMove();  // the player who made the move
+        (x ? xBits : oBits)[cell >>> 6] &= ~(1L << cell);
+        hash ^= zobristKeys[x ? cell : rules.getCellCount() + cell];
+
+        int[] counts = x ? xLineCounts : oLineCounts;
+        for (int i = lines.byCellStart[cell]; i < lines.byCellStart[cell + 1]; i++) {
+            int line = lines.byCell[i];
+            lineScore -= lineValue(line);
+            counts[line]--;
+            lineScore += lineValue(line);
+        }
+
+        // No move can follow a win, so a win always belongs to the last move
+        winLine = -1;
+    }
+
+    /** Value of one line from X's point of view: lines held by both players are dead */
+    private long lineValue(int line) {
+        int xCount = xLineCounts[line];
+        int oCount = oLineCounts[line];
+        if (oCount == 0) return lineWeights[xCount];
+        if (xCount == 0) return -lineWeights[oCount];
+        return 0;
+    }
+
+    /* -------------------- Move generation -------------------- */
+
+    /**
+     * Writes all empty cells, in ascending order, into the buffer.
+     * The buffer must hold at least {@link Rules#getCellCount()} entries.
+     *
+     * @return number of moves written (0 if the game is over)
+     */
+    public int generateMoves(int[] buffer) {
+        if (winLine >= 0) return 0;
+
+        int count = 0;
+        int cellCount = rules.getCellCount();
+        for (int word = 0; word < xBits.length; word++) {
+            long empty = ~(xBits[word] | oBits[word]);
+            while (empty != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(empty);
+                if (cell >= cellCount) break;
+                buffer[count++] = cell;
+                empty &= empty - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the empty cells as a bitmask (bit i = cell i).
+     * Only available on boards with at most 64 cells.
+     *
+     * @throws IllegalStateException on larger boards
+     */
+    public long emptyMask() {
+        int cellCount = rules.getCellCount();
+        if (cellCount > 64) {
+            throw new IllegalStateException("Board has more than 64 cells: " + rules);
+        }
+        long all = cellCount == 64 ? -1L : (1L << cellCount) - 1;
+        return ~(xBits[0] | oBits[0]) & all;
+    }
+
+    /* -------------------- Queries -------------------- */
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /** @return the contents of the cell: {@link #EMPTY}, {@link #X} or {@link #O} */
+    public int get(int cell) {
+        long bit = 1L << cell;
+        if ((xBits[cell >>> 6] & bit) != 0) return X;
+        if ((oBits[cell >>> 6] & bit) != 0) return O;
+        return EMPTY;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((xBits[cell >>> 6] | oBits[cell >>> 6]) & (1L << cell)) == 0;
+    }
+
+    /**
+     * Returns 64 cells of a player's bitboard.
+     *
+     * @param player {@link #X} or {@link #O}
+     * @param word   cells word * 64 .. word * 64 + 63
+     */
+    public long getBits(int player, int word) {
+        return player == X ? xBits[word] : oBits[word];
+    }
+
+    /** @return the player to move ({@link #X} or {@link #O}) */
+    public int getPlayerToMove() {
+        return isXToMove() ? X : O;
+    }
+
+    public boolean isXToMove() {
+        return (moveCount & 1) == 0;
+    }
+
+    /** @return number of stones on the board */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** @return the i-th move played (0 = first move) */
+    public int getMove(int i) {
+        return moves[i];
+    }
+
+    /** @return the last move played, or -1 on an empty board */
+    public int getLastMove() {
+        return moveCount == 0 ? -1 : moves[moveCount - 1];
+    }
+
+    /** @return number of empty cells */
+    public int getEmptyCount() {
+        return rules.getCellCount() - moveCount;
+    }
+
+    /** @return the winning player, or {@link #EMPTY} if nobody has won */
+    public int getWinner() {
+        if (winLine < 0) return EMPTY;
+        return (moveCount & 1) == 1 ? X : O;
+    }
+
+    /** @return the line completed by the winning move, or -1 */
+    public int getWinLine() {
+        return winLine;
+    }
+
+    public boolean isFull() {
+        return moveCount == rules.getCellCount();
+    }
+
+    public boolean isGameOver() {
+        return winLine >= 0 || isFull();
+    }
+
+    /** @return Zobrist hash of the position (0 for an empty board) */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns a heuristic score from X's point of view: every line that only
+     * one player occupies counts 4^(stones - 1), positive for X, negative for O.
+     * Maintained incrementally, so it is free to read at search leaves.
+     */
+    public long getLineScore() {
+        return lineScore;
+    }
+}
@@ -0,0 +1,396 @@
+package de.erind.tictactoe;
+
+/**
+ * Alpha-beta search on a {@link Board}, for any {@link Rules} variant.
+ *
+ * Uses the same position-only negamax scores as {@link AlphaBetaSearch}
+ * (win = 1 + empty cells left, loss = negated, draw = 0) and plays moves with
+ * make/unmake on the caller's board. Move lists go into per-ply buffers that
+ * are reused between searches, so a search allocates nothing.
+ *
+ * Exhaustive search is only feasible on small boards. {@link #bestMove(Board, long)}
+ * runs an iterative-deepening search against a deadline instead: positions
+ * at the depth limit are scored with {@link Board#getLineScore()}, and each
+ * iteration searches the previous iteration's best move first.
+ *
+ * Instances are not thread-safe: use one per thread.
+ */
+public final class BoardSearch {
+
+    /** Larger than any reachable score */
+    static final int INFINITY = Short.MAX_VALUE;
+
+    /** Caps win scores so they fit into a transposition table entry */
+    private static final int MAX_WIN_SCORE = Short.MAX_VALUE - 1;
+
+    /** Number of transposition table slots */
+    private static final int TABLE_SLOTS = 1 << 16;
+
+    /**
+     * Depth-limited scores: a win is worth DEPTH_WIN + empty cells left,
+     * heuristic scores are clamped to stay below DEPTH_WIN.
+     */
+    static final int DEPTH_WIN = 1 << 14;
+    private static final int MAX_EMPTY_BONUS = Short.MAX_VALUE - 1 - DEPTH_WIN;
+
+    /** Nodes between two deadline checks (a power of two) */
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    private final TranspositionTable table;
+
+    /** Table of the timed search: its scores and depths differ from the exhaustive search */
+    private final TranspositionTable depthTable;
+
+    /** False if the tables are shared; their owner clears them when the rules change */
+    private final boolean ownsTables;
+
+    /** Start (System.nanoTime) and budget of the running timed search */
+    private long start;
+    private long budget;
+    private long nodes;
+    private boolean timedOut;
+
+    /** Depth of the last completed iteration of the timed search */
+    private int completedDepth;
+
+    public BoardSearch() {
+        this.table = new TranspositionTable(TABLE_SLOTS);
+        this.depthTable = new TranspositionTable(TABLE_SLOTS);
+        this.ownsTables = true;
+    }
+
+    /**
+     * Creates a search on tables shared with searches on other threads
+     * (see {@link ParallelBoardSearch}). The caller must clear them
+     * whenever the rules change.
+     */
+    BoardSearch(TranspositionTable table, TranspositionTable depthTable) {
+        this.table = table;
+        this.depthTable = depthTable;
+        this.ownsTables = false;
+    }
+
+    /** Move buffer per ply, created on first use for the current rules */
+    private int[][] moveBuffers = new int[0][];
+
+    /** Rules the buffers and table were last used with */
+    private Rules rules;
+
+    /**
+     * Returns the best cell for the player to move, or -1 if the game is over.
+     * The board is left unchanged.
+     */
+    public int bestMove(Board board) {
+        prepare(board.getRules());
+        if (board.isGameOver()) return -1;
+
+        int[] moves = moveBuffer(0);
+        int count = board.generateMoves(moves);
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            int score = -search(board, 1, -INFINITY, -bestScore);
+            board.unmakeMove();
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Returns the negamax value of the position for the player to move.
+     * The board is left unchanged.
+     */
+    public int evaluate(Board board) {
+        prepare(board.getRules());
+        return search(board, 0, -INFINITY, INFINITY);
+    }
+
+    /**
+     * Returns the best cell for the player to move, searching with iterative
+     * deepening until the time budget is used up, or -1 if the game is over.
+     * The move comes from the deepest completed iteration; if the budget
+     * allows searching to the end of the game, the result is exact.
+     * The board is left unchanged.
+     *
+     * @param timeBudgetNanos time to search; at least one iteration always completes
+     */
+    public int bestMove(Board board, long timeBudgetNanos) {
+        prepare(board.getRules());
+        if (board.isGameOver()) return -1;
+
+        // Root moves keep their order between iterations
+        int[] moves = moveBuffer(0);
+        int count = board.generateMoves(moves);
+        int emptyCount = board.getEmptyCount();
+        int bestMove = moves[0];
+
+        start = System.nanoTime();
+        budget = timeBudgetNanos;
+        nodes = 0;
+        timedOut = false;
+        completedDepth = 0;
+
+        for (int depth = 1; depth <= emptyCount; depth++) {
+            int bestScore = -INFINITY;
+            int iterationBest = -1;
+
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                int score = -depthSearch(board, 1, depth - 1, -INFINITY, -bestScore);
+                board.unmakeMove();
+
+                if (timedOut) break;
+                if (score > bestScore) {
+                    bestScore = score;
+                    iterationBest = moves[i];
+                }
+            }
+            if (timedOut) break;
+
+            bestMove = iterationBest;
+            completedDepth = depth;
+            moveToFront(moves, count, bestMove);
+
+            // A proven result within the horizon does not change with more depth.
+            // Table entries of earlier searches may prove slower wins beyond it,
+            // so keep deepening until a faster win would have been seen.
+            if (Math.abs(bestScore) >= DEPTH_WIN
+                    && emptyCount - (Math.abs(bestScore) - DEPTH_WIN) <= depth) break;
+        }
+        return bestMove;
+    }
+
+    /* -------------------- Root moves for parallel searches -------------------- */
+
+    /**
+     * Scores one root move with a full-depth search against the best root
+     * score of all threads when the move is started. Results not above that
+     * score are upper bounds. The board is left unchanged.
+     *
+     * The window stays fixed for the whole subtree: narrowing it from a score
+     * that other threads raise later would hand bounds up as in-window scores,
+     * and the shared table would keep them as exact.
+     */
+    int searchRootMove(Board board, int move, int alpha) {
+        prepare(board.getRules());
+
+        board.makeMove(move);
+        int score = -search(board, 1, -INFINITY, -alpha);
+        board.unmakeMove();
+        return score;
+    }
+
+    /**
+     * Scores one root move to the given depth against a shared deadline.
+     * The result is only valid if {@link #isTimedOut()} is false afterwards.
+     * The board is left unchanged.
+     */
+    int searchRootMove(Board board, int move, int depth, int alpha, long start, long budget) {
+        prepare(board.getRules());
+        this.start = start;
+        this.budget = budget;
+        nodes = 0;
+        timedOut = false;
+
+        board.makeMove(move);
+        int score = -depthSearch(board, 1, depth - 1, -INFINITY, -alpha);
+        board.unmakeMove();
+        return score;
+    }
+
+    /** @return true if the last timed search ran out of time */
+    boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /** @return depth of the last completed iteration of {@link #bestMove(Board, long)} */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Depth-limited fail-soft negamax for the timed search. Returns 0 once
+     * the deadline has passed; callers must then discard the result.
+     */
+    private int depthSearch(Board board, int ply, int depth, int alpha, int beta) {
+        int emptyCount = board.getEmptyCount();
+
+        if (board.getWinner() != Board.EMPTY) return -depthWinScore(emptyCount);
+        if (emptyCount == 0) return 0;
+        if (depth == 0) return heuristic(board);
+
+        // Depth 0 returns above, so the first iteration always completes
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - start >= budget) {
+            timedOut = true;
+        }
+        if (timedOut) return 0;
+
+        long hash = board.getHash();
+        long entry = depthTable.probe(hash);
+        int tableMove = -1;
+        if (entry != 0) {
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT -> { return score; }
+                    case TranspositionTable.LOWER -> alpha = Math.max(alpha, score);
+                    default -> beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) return score;
+            }
+            tableMove = TranspositionTable.move(entry);
+        }
+
+        int[] moves = moveBuffer(ply);
+        int count = board.generateMoves(moves);
+        moveToFront(moves, count, tableMove);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            int score = -depthSearch(board, ply + 1, depth - 1, -beta, -alpha);
+            board.unmakeMove();
+            if (timedOut) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;  // cutoff
+                }
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        depthTable.store(hash, best, depth, bound, bestMove);
+        return best;
+    }
+
+    /** Line score for the player to move, clamped below the win scores */
+    private static int heuristic(Board board) {
+        long score = board.isXToMove() ? board.getLineScore() : -board.getLineScore();
+        return (int) Math.max(-(DEPTH_WIN - 1), Math.min(DEPTH_WIN - 1, score));
+    }
+
+    /** Win score of the timed search with the given number of empty cells left */
+    static int depthWinScore(int emptyCount) {
+        return DEPTH_WIN + Math.min(emptyCount, MAX_EMPTY_BONUS);
+    }
+
+    /**
+     * Fail-soft negamax with alpha-beta pruning and a transposition table.
+     */
+    private int search(Board board, int ply, int alpha, int beta) {
+        int emptyCount = board.getEmptyCount();
+
+        // The previous player completed a line
+        if (board.getWinner() != Board.EMPTY) return -winScore(emptyCount);
+
+        // No moves left -> draw
+        if (emptyCount == 0) return 0;
+
+        // Every search runs to the end of the game, so the number of
+        // empty cells is the depth an entry must have to be reused
+        long hash = board.getHash();
+        long entry = table.probe(hash);
+        int tableMove = -1;
+        if (entry != 0) {
+            if (TranspositionTable.depth(entry) >= emptyCount) {
+                int score = TranspositionTable.score(entry);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT -> { return score; }
+                    case TranspositionTable.LOWER -> alpha = Math.max(alpha, score);
+                    default -> beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) return score;
+            }
+            tableMove = TranspositionTable.move(entry);
+        }
+
+        int[] moves = moveBuffer(ply);
+        int count = board.generateMoves(moves);
+        moveToFront(moves, count, tableMove);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            int score = -search(board, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;  // cutoff
+                }
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        table.store(hash, best, emptyCount, bound, bestMove);
+        return best;
+    }
+
+    /**
+     * Sizes the move buffers for the rules. Table entries of another
+     * variant are meaningless, so own tables are cleared when the rules change.
+     */
+    private void prepare(Rules rules) {
+        if (rules.equals(this.rules)) return;
+
+        moveBuffers = new int[rules.getCellCount() + 1][];
+        if (ownsTables) {
+            table.clear();
+            depthTable.clear();
+        }
+        this.rules = rules;
+    }
+
+    /**
+     * Returns the move buffer for a ply, creating it the first time
+     * the search gets that deep with the current rules.
+     */
+    private int[] moveBuffer(int ply) {
+        int[] buffer = moveBuffers[ply];
+        if (buffer == null) {
+            buffer = new int[rules.getCellCount()];
+            moveBuffers[ply] = buffer;
+        }
+        return buffer;
+    }
+
+    /** Score of a win with the given number of empty cells left */
+    static int winScore(int emptyCount) {
+        return Math.min(1 + emptyCount, MAX_WIN_SCORE);
+    }
+
+    /** Moves the given cell to the front of the move list, if present */
+    static void moveToFront(int[] moves, int count, int cell) {
+        if (cell < 0) return;
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == cell) {
+                moves[i] = moves[0];
+                moves[0] = cell;
+                return;
+            }
+        }
+    }
+}
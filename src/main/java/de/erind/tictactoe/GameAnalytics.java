@@ -0,0 +1,361 @@
+package de.erind.tictactoe;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming analytics over archived games: record files written by
+ * {@link GameRecordWriter} and {@link GameJournal} directories.
+ *
+ * Archives are memory-mapped window by window and cut into blocks of whole
+ * records (record sizes follow from the headers, see {@link GameRecord}).
+ * The blocks are replayed through {@link GameState} on a fork-join pool;
+ * each block fills its own {@link Stats} and the stats are merged when the
+ * tasks join, so workers share no mutable state. Only one window is mapped
+ * and scanned at a time and no game is kept on the heap, so archives may be
+ * far larger than memory.
+ *
+ * Games are counted by opening cell, by which player started and by result.
+ * The second player is engine 2 in {@link SelfPlay} and the AI in the UI.
+ *
+ * Run with: ./gradlew analyze --args="games.rec journal"
+ */
+public final class GameAnalytics {
+
+    /** Bytes mapped and scanned at a time */
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    /** Bytes of records per fork-join task */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+
+    public GameAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Analyzes record files and journal directories.
+     *
+     * @throws IOException if an archive cannot be read or holds a malformed record
+     */
+    public Stats analyze(List<Path> archives) throws IOException {
+        Stats stats = new Stats();
+        for (Path archive : archives) {
+            if (Files.isDirectory(archive)) {
+                analyzeJournal(archive, stats);
+            } else {
+                try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+                    analyzeRegion(channel, 0, channel.size(), stats);
+                }
+            }
+        }
+        return stats;
+    }
+
+    /** Analyzes the committed records of every segment of a journal */
+    private void analyzeJournal(Path directory, Stats stats) throws IOException {
+        int last = GameJournal.lastSegmentIndex(directory);
+        for (int index = 0; index <= last; index++) {
+            try (FileChannel channel = FileChannel.open(GameJournal.segmentFile(directory, index), StandardOpenOption.READ)) {
+                if (channel.size() <= GameJournal.HEADER_SIZE) continue;
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, GameJournal.HEADER_SIZE);
+                long committed = Math.min(GameJournal.committed(header), channel.size());
+                analyzeRegion(channel, GameJournal.HEADER_SIZE, committed, stats);
+            }
+        }
+    }
+
+    /**
+     * Analyzes the records in [start, end) of a file, one mapped window at a
+     * time. Each window ends at a record boundary; the next one starts there.
+     */
+    private void analyzeRegion(FileChannel channel, long start, long end, Stats stats) throws IOException {
+        long position = start;
+        while (position < end) {
+            long length = Math.min(WINDOW_SIZE, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            List<ByteBuffer> blocks = new ArrayList<>();
+            int used = cutBlocks(window, (int) length, blocks);
+            if (used == 0) {
+                throw new EOFException("Game record truncated at byte " + position);
+            }
+
+            stats.add(pool.invoke(new Replay(blocks, 0, blocks.size())));
+            position += used;
+        }
+    }
+
+    /**
+     * Cuts the window into blocks of about BLOCK_SIZE bytes of whole records.
+     *
+     * @return the bytes covered by the blocks (up to the last whole record)
+     */
+    private static int cutBlocks(ByteBuffer window, int limit, List<ByteBuffer> blocks) throws IOException {
+        int blockStart = 0;
+        int pos = 0;
+        while (true) {
+            int size = GameRecord.size(window, pos, limit);
+            if (size < 0 || pos - blockStart >= BLOCK_SIZE) {
+                if (pos > blockStart) blocks.add(window.slice(blockStart, pos - blockStart));
+                blockStart = pos;
+                if (size < 0) return pos;
+            }
+            pos += size;
+        }
+    }
+
+    /**
+     * Fork-join task: replays a range of blocks, splitting it in halves
+     * down to single blocks, and merges the stats.
+     */
+    private static final class Replay extends RecursiveTask<Stats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ByteBuffer> blocks;
+        private final int from;
+        private final int to;
+
+        Replay(List<ByteBuffer> blocks, int from, int to) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= 1) {
+                Stats stats = new Stats();
+                if (from < to) replayBlock(blocks.get(from), stats);
+                return stats;
+            }
+
+            int mid = (from + to) >>> 1;
+            Replay left = new Replay(blocks, from, mid);
+            left.fork();
+            Stats stats = new Replay(blocks, mid, to).compute();
+            stats.add(left.join());
+            return stats;
+        }
+
+        /** Replays every record of the block; checks moves and results on the way */
+        private static void replayBlock(ByteBuffer block, Stats stats) {
+            GameRecordReader reader = new GameRecordReader(block);
+            GameState game = null;
+            Table table = null;
+            try {
+                while (reader.next()) {
+                    if (game == null || !game.getRules().equals(reader.getRules())) {
+                        game = new GameState(reader.getRules());
+                        table = stats.table(reader.getRules());
+                    }
+                    reader.replay(game);
+                    table.count(reader);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Aggregated game counts, one table per variant.
+     */
+    public static final class Stats {
+
+        private final Map<Rules, Table> tables = new LinkedHashMap<>();
+
+        /** @return the counts per variant, in order of first appearance */
+        public Map<Rules, Table> tables() {
+            return tables;
+        }
+
+        public long games() {
+            long games = 0;
+            for (Table table : tables.values()) {
+                games += table.games();
+            }
+            return games;
+        }
+
+        Table table(Rules rules) {
+            return tables.computeIfAbsent(rules, Table::new);
+        }
+
+        void add(Stats other) {
+            for (Table table : other.tables.values()) {
+                table(table.rules).add(table);
+            }
+        }
+    }
+
+    /**
+     * Game counts of one variant by starter, opening cell and result.
+     */
+    public static final class Table {
+
+        private static final int RESULTS = GameRecord.Result.values().length;
+
+        private final Rules rules;
+
+        /** Counts at [(starter * (cells + 1) + opening + 1) * RESULTS + result]; opening -1 for empty games */
+        private final long[] counts;
+
+        Table(Rules rules) {
+            this.rules = rules;
+            this.counts = new long[2 * (rules.getCellCount() + 1) * RESULTS];
+        }
+
+        public Rules getRules() {
+            return rules;
+        }
+
+        /**
+         * @param openingCell first move, or -1 for games without moves
+         */
+        public long count(boolean secondPlayerStarted, int openingCell, GameRecord.Result result) {
+            return counts[index(secondPlayerStarted, openingCell, result)];
+        }
+
+        /** @return games with this opening, by either starter and with any result */
+        public long games(int openingCell) {
+            long games = 0;
+            for (GameRecord.Result result : GameRecord.Result.values()) {
+                games += count(false, openingCell, result) + count(true, openingCell, result);
+            }
+            return games;
+        }
+
+        /** @return games with this opening and result, by either starter */
+        public long games(int openingCell, GameRecord.Result result) {
+            return count(false, openingCell, result) + count(true, openingCell, result);
+        }
+
+        public long games() {
+            long games = 0;
+            for (long count : counts) {
+                games += count;
+            }
+            return games;
+        }
+
+        /** @return the four corner cells (fewer on boards one cell wide or high) */
+        public int[] corners() {
+            int w = rules.getWidth();
+            int h = rules.getHeight();
+            return IntStream.of(0, w - 1, (h - 1) * w, h * w - 1).distinct().toArray();
+        }
+
+        private int index(boolean secondPlayerStarted, int openingCell, GameRecord.Result result) {
+            int starter = secondPlayerStarted ? 1 : 0;
+            return (starter * (rules.getCellCount() + 1) + openingCell + 1) * RESULTS + result.ordinal();
+        }
+
+        void count(GameRecordReader record) {
+            int opening = record.getMoveCount() == 0 ? -1 : record.getMove(0);
+            counts[index(record.isSecondPlayerStarted(), opening, record.getResult())]++;
+        }
+
+        void add(Table other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+        }
+    }
+
+    /* -------------------- Command line -------------------- */
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: GameAnalytics [options] ARCHIVE...",
+            "  ARCHIVE          game record file (--record) or journal directory (--journal)",
+            "  --threads N      worker threads (default: all cores)");
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> archives = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads")) {
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for --threads");
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                } else {
+                    archives.add(Path.of(args[i]));
+                }
+            }
+            if (archives.isEmpty()) throw new IllegalArgumentException("No archive given");
+            if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Stats stats = new GameAnalytics(pool).analyze(archives);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "Analyzed %,d games in %.2f s (%,.0f games/s, %d thread(s))%n",
+                    stats.games(), seconds, stats.games() / Math.max(seconds, 1e-9), threads);
+            for (Table table : stats.tables().values()) {
+                print(table);
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Cannot analyze archives: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static void print(Table table) {
+        Rules rules = table.getRules();
+        System.out.printf(Locale.ROOT, "%s: %,d games%n", rules, table.games());
+        System.out.println("  opening       games    X wins    O wins     draws");
+        for (int cell = 0; cell < rules.getCellCount(); cell++) {
+            long games = table.games(cell);
+            if (games == 0) continue;
+            System.out.printf(Locale.ROOT, "  (%d,%d) %,13d %8.2f%% %8.2f%% %8.2f%%%n",
+                    rules.row(cell), rules.col(cell), games,
+                    100.0 * table.games(cell, GameRecord.Result.X_WINS) / games,
+                    100.0 * table.games(cell, GameRecord.Result.O_WINS) / games,
+                    100.0 * table.games(cell, GameRecord.Result.DRAW) / games);
+        }
+
+        // Draw rate of each player when it opened in a corner
+        for (boolean second : new boolean[] {false, true}) {
+            long games = 0;
+            long draws = 0;
+            for (int corner : table.corners()) {
+                for (GameRecord.Result result : GameRecord.Result.values()) {
+                    games += table.count(second, corner, result);
+                }
+                draws += table.count(second, corner, GameRecord.Result.DRAW);
+            }
+            if (games > 0) {
+                System.out.printf(Locale.ROOT, "  %s player opened in a corner: %,d games, %.2f%% draws%n",
+                        second ? "Second" : "First", games, 100.0 * draws / games);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package de.erind.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of finished games in memory-mapped segment files.
+ *
+ * The journal is a directory of fixed-size segments (games-000000.log, ...).
+ * Each segment starts with a 16-byte header, followed by {@link GameRecord}s:
+ * <pre>
+ *   bytes 0-7   committed: end of the last complete record (little endian)
+ *   bytes 8-15  sealed: 1 once the writer has moved on to the next segment
+ * </pre>
+ * A record is copied into the mapping first and only then published by
+ * raising the committed length with a release store. Readers
+ * ({@link GameJournalReader}) load it with an acquire load and decode records
+ * in place up to that point, so they never lock, never copy and never see a
+ * partial record. A record never spans two segments: when it does not fit,
+ * the next segment is created and the current one sealed.
+ *
+ * There is one writer per journal: appends are serialized on the instance,
+ * so several game threads may share it. Writes reach the file through the
+ * page cache; {@link #force} waits for them to reach the disk.
+ * Reopening a directory continues after the last committed record.
+ */
+public final class GameJournal implements Closeable {
+
+    /** Default segment size (64 MB, about 15 million classic games) */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+
+    static final int COMMITTED_OFFSET = 0;
+    static final int SEALED_OFFSET = 8;
+    static final int HEADER_SIZE = 16;
+
+    /** Atomic long access to the segment header */
+    static final VarHandle HEADER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final int segmentSize;
+
+    /** Encoding buffer, resized for the largest rules seen */
+    private byte[] scratch = new byte[0];
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+
+    /** Write position in the segment (equal to its committed length) */
+    private int position;
+
+    private boolean closed;
+
+    /** Opens or creates a journal with the default segment size. */
+    public GameJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens or creates a journal. An existing journal keeps the size of its
+     * existing segments; new segments get the given size.
+     */
+    public GameJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must exceed " + HEADER_SIZE + ": " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        int last = lastSegmentIndex(directory);
+        if (last < 0) {
+            openSegment(0, true);
+        } else if (isUnfinished(last)) {
+            // Crashed before the segment was sized and initialized: create it again
+            Files.delete(segmentFile(directory, last));
+            openSegment(last, true);
+            if (last > 0) sealPrevious(last - 1);
+        } else {
+            openSegment(last, false);
+            position = committed(segment);
+            if (position < HEADER_SIZE) {
+                // Crashed while creating this segment
+                position = HEADER_SIZE;
+                HEADER.setRelease(segment, COMMITTED_OFFSET, (long) position);
+            }
+            if (last > 0) sealPrevious(last - 1);
+        }
+    }
+
+    /**
+     * Appends the game on the board.
+     *
+     * @param secondPlayerStarted true if the second player made the first move (as X)
+     * @throws IllegalArgumentException if a record for these rules cannot fit in a segment
+     * @throws IllegalStateException    if the journal is closed
+     */
+    public synchronized void append(Board board, boolean secondPlayerStarted) throws IOException {
+        if (closed) throw new IllegalStateException("Journal is closed");
+
+        int maxSize = GameRecord.maxSize(board.getRules());
+        if (maxSize > scratch.length) {
+            if (maxSize > segmentSize - HEADER_SIZE) {
+                throw new IllegalArgumentException("Records for " + board.getRules()
+                        + " do not fit in segments of " + segmentSize + " bytes");
+            }
+            scratch = new byte[maxSize];
+        }
+
+        int length = GameRecord.encode(board, secondPlayerStarted, scratch, 0);
+        if (position + length > segment.capacity()) {
+            roll();
+        }
+
+        segment.put(position, scratch, 0, length);
+        position += length;
+        HEADER.setRelease(segment, COMMITTED_OFFSET, (long) position);
+    }
+
+    /** Waits until all appended games are written to the disk. */
+    public synchronized void force() {
+        segment.force();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Closes the journal; the last segment stays unsealed so that a later
+     * writer can continue it. Mappings are released by the garbage collector.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        segment.force();
+    }
+
+    /* -------------------- Segments -------------------- */
+
+    /**
+     * Starts the next segment. It is created before the current one is
+     * sealed, so a reader that sees the seal can always open the next file.
+     */
+    private void roll() throws IOException {
+        MappedByteBuffer previous = segment;
+        previous.force();
+        openSegment(segmentIndex + 1, true);
+        HEADER.setRelease(previous, SEALED_OFFSET, 1L);
+    }
+
+    /**
+     * @return true if the segment is smaller than a new segment and holds no
+     *         committed record, i.e. a crash interrupted its creation
+     */
+    private boolean isUnfinished(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(directory, index), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= segmentSize) return false;
+            if (size < HEADER_SIZE) return true;
+            return committed(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)) <= HEADER_SIZE;
+        }
+    }
+
+    /** Seals a segment left open by a crash during {@link #roll}, so readers move on. */
+    private void sealPrevious(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(directory, index),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer previous = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (!sealed(previous)) {
+                HEADER.setRelease(previous, SEALED_OFFSET, 1L);
+                previous.force();
+            }
+        }
+    }
+
+    private void openSegment(int index, boolean create) throws IOException {
+        Path file = segmentFile(directory, index);
+        try (FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = create ? segmentSize : channel.size();
+            if (size <= HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid journal segment size " + size + ": " + file);
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (create) {
+                HEADER.setRelease(mapped, COMMITTED_OFFSET, (long) HEADER_SIZE);
+                position = HEADER_SIZE;
+            }
+            segment = mapped;
+            segmentIndex = index;
+        }
+    }
+
+    static Path segmentFile(Path directory, int index) {
+        return directory.resolve(String.format("games-%06d.log", index));
+    }
+
+    /** @return the highest segment index in the directory, or -1 if there is none */
+    static int lastSegmentIndex(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("games-\\d{6}\\.log"))
+                    .mapToInt(name -> Integer.parseInt(name.substring(6, 12)))
+                    .max()
+                    .orElse(-1);
+        }
+    }
+
+    /** Reads the committed length of a segment (acquire) */
+    static int committed(ByteBuffer segment) {
+        return (int) (long) HEADER.getAcquire(segment, COMMITTED_OFFSET);
+    }
+
+    /** Reads the sealed flag of a segment (acquire) */
+    static boolean sealed(ByteBuffer segment) {
+        return (long) HEADER.getAcquire(segment, SEALED_OFFSET) != 0;
+    }
+}
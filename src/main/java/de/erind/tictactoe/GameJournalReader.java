@@ -0,0 +1,90 @@
+package de.erind.tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tails a {@link GameJournal}, from its first game, while it is being written.
+ *
+ * Segments are mapped read-only and decoded in place: the reader raises the
+ * limit of its view to the committed length published by the writer and
+ * decodes records up to it, with no locks and no copying. Any number of
+ * readers, in this or other processes, can tail the same journal.
+ *
+ * <pre>
+ *   while (running) {
+ *       if (reader.next()) {
+ *           GameRecordReader record = reader.record();
+ *           ...
+ *       } else {
+ *           Thread.onSpinWait(); // or sleep: caught up with the writer
+ *       }
+ *   }
+ * </pre>
+ *
+ * Not thread-safe: use one reader per thread.
+ */
+public final class GameJournalReader {
+
+    private final Path directory;
+
+    /** Read-only view of the current segment, limited to its committed length */
+    private ByteBuffer segment;
+    private int segmentIndex = -1;
+    private GameRecordReader record;
+
+    public GameJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Decodes the next game, if the writer has committed one.
+     *
+     * @return false if there is no new game yet (or no journal yet); call again later
+     * @throws IOException if a segment cannot be mapped or holds a malformed record
+     */
+    public boolean next() throws IOException {
+        if (segment == null && !openSegment(0)) return false;
+
+        while (true) {
+            // Seal first: once it is seen, the committed length below is final
+            boolean sealed = GameJournal.sealed(segment);
+            segment.limit(Math.max(GameJournal.committed(segment), GameJournal.HEADER_SIZE));
+            if (record.next()) return true;
+
+            if (!sealed || !openSegment(segmentIndex + 1)) return false;
+        }
+    }
+
+    /** @return the game decoded by the last successful {@link #next} */
+    public GameRecordReader record() {
+        return record;
+    }
+
+    /** @return the index of the segment being read, or -1 before the first one is open */
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    private boolean openSegment(int index) throws IOException {
+        Path file = GameJournal.segmentFile(directory, index);
+        if (!Files.exists(file)) return false;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The writer may still be sizing a new file
+            if (channel.size() <= GameJournal.HEADER_SIZE) return false;
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.position(GameJournal.HEADER_SIZE);
+            segment = mapped;
+            segmentIndex = index;
+            record = new GameRecordReader(mapped);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package de.erind.tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format for finished (or abandoned) games.
+ *
+ * Every record starts with a header byte:
+ * <pre>
+ *   bits 0-1  result: 0 unfinished, 1 X wins, 2 O wins, 3 draw
+ *   bit  2    starter: 1 if the second player started (played X)
+ *   bit  3    variant: 0 classic 3x3, 1 any other board
+ *   bits 4-7  classic only: number of moves (0-9)
+ * </pre>
+ * Classic games follow with one nibble per move (cell index, low nibble
+ * first), so a full game takes at most 6 bytes. Other variants follow with
+ * the varints width, height, win length and move count, then one varint cell
+ * index per move. Varints are unsigned LEB128 (7 bits per byte, low first).
+ *
+ * Records have no framing beyond this, so they can be concatenated into a
+ * stream and read back with {@link GameRecordReader}.
+ */
+public final class GameRecord {
+
+    /** Outcome stored in a record */
+    public enum Result {
+        UNFINISHED, X_WINS, O_WINS, DRAW;
+
+        private static final Result[] VALUES = values();
+
+        static Result of(int code) {
+            return VALUES[code];
+        }
+
+        /** Result of the game on the board so far */
+        public static Result of(Board board) {
+            return switch (board.getWinner()) {
+                case Board.X -> X_WINS;
+                case Board.O -> O_WINS;
+                default -> board.isFull() ? DRAW : UNFINISHED;
+            };
+        }
+    }
+
+    static final int RESULT_MASK = 0x03;
+    static final int SECOND_PLAYER_STARTED = 0x04;
+    static final int VARIANT = 0x08;
+    static final int MOVE_COUNT_SHIFT = 4;
+
+    /** Utility class: prevent instantiation */
+    private GameRecord() {}
+
+    /**
+     * Upper bound of the encoded size of any game on the given rules,
+     * for sizing buffers.
+     */
+    public static int maxSize(Rules rules) {
+        if (rules.isClassic()) {
+            return 1 + (rules.getCellCount() + 1) / 2;
+        }
+        return 1 + varintSize(rules.getWidth()) + varintSize(rules.getHeight())
+                + varintSize(rules.getWinLength()) + varintSize(rules.getCellCount())
+                + rules.getCellCount() * varintSize(rules.getCellCount() - 1);
+    }
+
+    /**
+     * Encodes the moves and result of the board into the buffer.
+     *
+     * @param secondPlayerStarted true if the second player made the first move (as X)
+     * @return the number of bytes written
+     * @throws IndexOutOfBoundsException if fewer than {@link #maxSize} bytes are left
+     */
+    public static int encode(Board board, boolean secondPlayerStarted, byte[] buffer, int offset) {
+        Rules rules = board.getRules();
+        int moveCount = board.getMoveCount();
+        int header = Result.of(board).ordinal() | (secondPlayerStarted ? SECOND_PLAYER_STARTED : 0);
+        int pos = offset;
+
+        if (rules.isClassic()) {
+            buffer[pos++] = (byte) (header | moveCount << MOVE_COUNT_SHIFT);
+            for (int i = 0; i < moveCount; i += 2) {
+                int low = board.getMove(i);
+                int high = i + 1 < moveCount ? board.getMove(i + 1) : 0;
+                buffer[pos++] = (byte) (low | high << 4);
+            }
+            return pos - offset;
+        }
+
+        buffer[pos++] = (byte) (header | VARIANT);
+        pos = writeVarint(rules.getWidth(), buffer, pos);
+        pos = writeVarint(rules.getHeight(), buffer, pos);
+        pos = writeVarint(rules.getWinLength(), buffer, pos);
+        pos = writeVarint(moveCount, buffer, pos);
+        for (int i = 0; i < moveCount; i++) {
+            pos = writeVarint(board.getMove(i), buffer, pos);
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Returns the size of the record starting at pos without decoding its
+     * moves, or -1 if the record does not end before limit. Lets readers
+     * split an archive into blocks of whole records.
+     *
+     * @throws IOException if a varint is malformed or the move count is negative
+     */
+    static int size(ByteBuffer buffer, int pos, int limit) throws IOException {
+        if (pos >= limit) return -1;
+        int header = buffer.get(pos) & 0xFF;
+        int size;
+        if ((header & VARIANT) == 0) {
+            size = 1 + ((header >>> MOVE_COUNT_SHIFT) + 1) / 2;
+        } else {
+            int end = pos + 1;
+            int moveCount = 0;
+            for (int field = 0; field < 4 + moveCount; field++) {
+                int value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    if (end >= limit) return -1;
+                    if (shift >= 32) throw new IOException("Corrupt game record: varint too long");
+                    int b = buffer.get(end++);
+                    value |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) break;
+                }
+                if (field == 3) {
+                    if (value < 0) throw new IOException("Corrupt game record: " + value + " moves");
+                    moveCount = value;
+                }
+            }
+            size = end - pos;
+        }
+        return pos + size <= limit ? size : -1;
+    }
+
+    /* -------------------- Varints -------------------- */
+
+    /** @return the position after the varint */
+    static int writeVarint(int value, byte[] buffer, int pos) {
+        while ((value & ~0x7F) != 0) {
+            buffer[pos++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
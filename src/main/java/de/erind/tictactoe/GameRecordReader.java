@@ -0,0 +1,232 @@
+package de.erind.tictactoe;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming decoder for {@link GameRecord}s.
+ *
+ * {@link #next} decodes one record at a time into reused buffers, so reading
+ * an archive of any size needs constant memory and allocates nothing per game
+ * (Rules are only created when the variant changes).
+ *
+ * <pre>
+ *   try (GameRecordReader reader = new GameRecordReader(in)) {
+ *       while (reader.next()) {
+ *           reader.replay(game);
+ *       }
+ *   }
+ * </pre>
+ *
+ * Not thread-safe.
+ */
+public final class GameRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Source stream, or null when reading from an array or byte buffer */
+    private final InputStream in;
+
+    /** Source buffer, or null; read between its position and limit */
+    private final ByteBuffer source;
+
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /* ---- Current record ---- */
+
+    private Rules rules = Rules.CLASSIC;
+    private int[] moves = new int[Rules.CLASSIC.getCellCount()];
+    private int moveCount;
+    private GameRecord.Result result;
+    private boolean secondPlayerStarted;
+
+    /** Reads records from a stream (buffered internally). */
+    public GameRecordReader(InputStream in) {
+        this.in = in;
+        this.source = null;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /** Reads records from a region of an array, e.g. a block read elsewhere. */
+    public GameRecordReader(byte[] data, int offset, int length) {
+        this.in = null;
+        this.source = null;
+        this.buffer = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads records in place from a buffer, e.g. a memory-mapped file,
+     * from its position up to its limit. The caller may raise the limit
+     * between records to read records appended in the meantime.
+     */
+    public GameRecordReader(ByteBuffer source) {
+        this.in = null;
+        this.source = source;
+        this.buffer = null;
+    }
+
+    /**
+     * Decodes the next record.
+     *
+     * @return false at the end of the input
+     * @throws EOFException if the input ends inside a record
+     * @throws IOException  if the record is malformed or reading fails
+     */
+    public boolean next() throws IOException {
+        int header = read();
+        if (header < 0) return false;
+
+        result = GameRecord.Result.of(header & GameRecord.RESULT_MASK);
+        secondPlayerStarted = (header & GameRecord.SECOND_PLAYER_STARTED) != 0;
+
+        if ((header & GameRecord.VARIANT) == 0) {
+            setRules(Rules.CLASSIC);
+            moveCount = header >>> GameRecord.MOVE_COUNT_SHIFT;
+            checkMoveCount();
+            for (int i = 0; i < moveCount; i += 2) {
+                int packed = readByte();
+                moves[i] = checkCell(packed & 0x0F);
+                if (i + 1 < moveCount) moves[i + 1] = checkCell(packed >>> 4);
+            }
+            return true;
+        }
+
+        if (header >>> GameRecord.MOVE_COUNT_SHIFT != 0) {
+            throw new IOException("Corrupt game record: unknown header bits " + header);
+        }
+        int width = readVarint();
+        int height = readVarint();
+        int winLength = readVarint();
+        if (width != rules.getWidth() || height != rules.getHeight() || winLength != rules.getWinLength()) {
+            try {
+                setRules(new Rules(width, height, winLength));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt game record: " + e.getMessage(), e);
+            }
+        }
+        moveCount = readVarint();
+        checkMoveCount();
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = checkCell(readVarint());
+        }
+        return true;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** @return the cell of move i (X plays the even moves) */
+    public int getMove(int i) {
+        if (i >= moveCount) throw new IndexOutOfBoundsException("Move " + i + " of " + moveCount);
+        return moves[i];
+    }
+
+    public GameRecord.Result getResult() {
+        return result;
+    }
+
+    /** @return true if the second player made the first move (as X) */
+    public boolean isSecondPlayerStarted() {
+        return secondPlayerStarted;
+    }
+
+    /**
+     * Resets the game and plays the moves of the current record on it.
+     *
+     * @throws IllegalArgumentException if the game uses other rules
+     * @throws IOException if a move is illegal or the result does not match the moves
+     */
+    public void replay(GameState game) throws IOException {
+        if (!game.getRules().equals(rules)) {
+            throw new IllegalArgumentException("Record is for " + rules + ", game is " + game.getRules());
+        }
+
+        game.reset(secondPlayerStarted);
+        GameState.MoveResult last = null;
+        for (int i = 0; i < moveCount; i++) {
+            last = game.play(rules.row(moves[i]), rules.col(moves[i]));
+            if (last.type == GameState.MoveResult.Type.INVALID) {
+                throw new IOException("Corrupt game record: move " + i + " (" + moves[i] + "): " + last.message);
+            }
+        }
+
+        GameRecord.Result replayed = last == null || last.type == GameState.MoveResult.Type.CONTINUE
+                ? GameRecord.Result.UNFINISHED
+                : last.type == GameState.MoveResult.Type.DRAW ? GameRecord.Result.DRAW
+                : "X".equals(last.winner) ? GameRecord.Result.X_WINS : GameRecord.Result.O_WINS;
+        if (replayed != result) {
+            throw new IOException("Corrupt game record: stored result " + result + ", moves give " + replayed);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) in.close();
+    }
+
+    /* -------------------- Decoding -------------------- */
+
+    private void setRules(Rules rules) {
+        if (rules.getCellCount() > moves.length) {
+            moves = new int[rules.getCellCount()];
+        }
+        this.rules = rules;
+    }
+
+    private void checkMoveCount() throws IOException {
+        if (moveCount < 0 || moveCount > rules.getCellCount()) {
+            throw new IOException("Corrupt game record: " + moveCount + " moves on " + rules);
+        }
+    }
+
+    private int checkCell(int cell) throws IOException {
+        if (cell < 0 || cell >= rules.getCellCount()) {
+            throw new IOException("Corrupt game record: cell " + cell + " on " + rules);
+        }
+        return cell;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt game record: varint too long");
+    }
+
+    /** Reads a byte inside a record */
+    private int readByte() throws IOException {
+        int b = read();
+        if (b < 0) throw new EOFException("Game record truncated");
+        return b;
+    }
+
+    /** @return the next byte, or -1 at the end of the input */
+    private int read() throws IOException {
+        if (source != null) {
+            return source.hasRemaining() ? source.get() & 0xFF : -1;
+        }
+        if (position == limit) {
+            if (in == null) return -1;
+            int n = in.readNBytes(buffer, 0, buffer.length);
+            if (n <= 0) return -1;
+            position = 0;
+            limit = n;
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
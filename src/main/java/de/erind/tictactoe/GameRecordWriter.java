@@ -0,0 +1,84 @@
+package de.erind.tictactoe;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes {@link GameRecord}s to a stream.
+ *
+ * Records are encoded into an internal buffer and written in large blocks,
+ * so writing a game is a few array stores and allocates nothing.
+ *
+ * Not thread-safe: give each writer thread its own buffer
+ * (see {@link GameState#encodeRecord}) or synchronize on the writer.
+ */
+public final class GameRecordWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    public GameRecordWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends the game on the board.
+     *
+     * @param secondPlayerStarted true if the second player made the first move (as X)
+     */
+    public void write(Board board, boolean secondPlayerStarted) throws IOException {
+        int maxSize = GameRecord.maxSize(board.getRules());
+        if (maxSize > buffer.length) {
+            // Huge boards: encode on its own
+            byte[] record = new byte[maxSize];
+            int length = GameRecord.encode(board, secondPlayerStarted, record, 0);
+            write(record, 0, length);
+            return;
+        }
+
+        if (position + maxSize > buffer.length) flushBuffer();
+        position += GameRecord.encode(board, secondPlayerStarted, buffer, position);
+    }
+
+    /**
+     * Appends already encoded records (e.g. a block encoded by a worker thread).
+     */
+    public void write(byte[] records, int offset, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                out.write(records, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(records, offset, buffer, position, length);
+        position += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package de.erind.tictactoe;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Represents the core game logic and state of a Tic-Tac-Toe game.
  *
  * Responsibilities:
- * - Maintain the board state
+ * - Maintain the board state (see {@link Board})
  * - Track whose turn it is
  * - Detect wins and draws
  * - Validate moves
+ * - Keep the move history for undo, redo and stepping to any ply
+ * - Append finished games to a {@link GameJournal}, if one is set
+ *
+ * The board size and win length are given by {@link Rules};
+ * the default is classic 3x3 Tic-Tac-Toe.
  */
 public class GameState {
 
     /** Board size (3x3 for classic Tic-Tac-Toe) */
     public static final int SIZE = 3;
 
-    /** Internal board representation */
-    private final String[][] board = new String[SIZE][SIZE];
+    /** Board size and win length */
+    private final Rules rules;
+
+    /** Internal board representation (bitboards, per-line counters, move list) */
+    private final Board board;
 
     /** True if it is X's turn, false if it is O's turn */
     private boolean xTurn = true;
@@ -23,11 +34,47 @@ public class GameState {
     /** True once the game has ended (win or draw) */
     private boolean gameOver = false;
 
-    /** Creates a new game with an empty board */
+    /** True if the second player started this game (stored in game records) */
+    private boolean secondPlayerStarted = false;
+
+    /** Journal for finished games, or null */
+    private GameJournal journal;
+
+    /**
+     * Moves of the game, including undone ones: history[0 .. ply) are on the
+     * board, history[ply .. historyLength) can be redone.
+     */
+    private final int[] history;
+    private int historyLength;
+
+    /** Snapshot of the current position, built on first request; null after any change */
+    private Position position;
+
+    /** Creates a new classic 3x3 game with an empty board */
     public GameState() {
+        this(Rules.CLASSIC);
+    }
+
+    /** Creates a new game with an empty board for the given variant */
+    public GameState(Rules rules) {
+        this.rules = rules;
+        this.board = new Board(rules);
+        this.history = new int[rules.getCellCount()];
         reset();
     }
 
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getWidth() {
+        return rules.getWidth();
+    }
+
+    public int getHeight() {
+        return rules.getHeight();
+    }
+
     public boolean isXTurn() {
         return xTurn;
     }
@@ -36,11 +83,28 @@ public class GameState {
         return gameOver;
     }
 
+    /**
+     * Appends every game that ends in a win or draw to the journal
+     * (null to stop). Several games may share a journal.
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
     /**
      * Returns the symbol stored at a given board position.
+     *
+     * @throws IndexOutOfBoundsException if (row, col) is outside the board
      */
     public String getCell(int row, int col) {
-        return board[row][col];
+        if (!rules.contains(row, col)) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is outside the " + rules + " board");
+        }
+        return switch (board.get(rules.cell(row, col))) {
+            case Board.X -> "X";
+            case Board.O -> "O";
+            default -> "";
+        };
     }
 
     /**
@@ -49,34 +113,54 @@ public class GameState {
     public MoveResult play(int row, int col) {
         // Reject moves if the game is already over
         if (gameOver) {
-            return MoveResult.invalid("Game is over.");
+            return MoveResult.GAME_OVER;
+        }
+
+        // Reject moves outside the board
+        if (!rules.contains(row, col)) {
+            return MoveResult.OUTSIDE_BOARD;
         }
 
         // Reject moves on already occupied cells
-        if (!board[row][col].isEmpty()) {
-            return MoveResult.invalid("Cell already used.");
+        int cell = rules.cell(row, col);
+        if (!board.isEmpty(cell)) {
+            return MoveResult.CELL_USED;
         }
 
-        // Place current player's symbol
-        String symbol = xTurn ? "X" : "O";
-        board[row][col] = symbol;
+        // Place current player's symbol (the board checks the lines through this cell);
+        // a new move replaces the moves that could have been redone
+        board.makeMove(cell);
+        history[board.getMoveCount() - 1] = cell;
+        historyLength = board.getMoveCount();
+        position = null;
 
         // Check for a winning condition
-        int[][] winLine = findWinningLine(symbol);
-        if (winLine != null) {
-            gameOver = true;
-            return MoveResult.win(symbol, winLine);
+        if (board.getWinLine() >= 0) {
+            endGame();
+            return rules.lines().winResult(board.getWinLine(), xTurn);
         }
 
         // Check for draw (board full)
-        if (isBoardFull()) {
-            gameOver = true;
-            return MoveResult.draw();
+        if (board.isFull()) {
+            endGame();
+            return MoveResult.DRAW;
         }
 
         // Switch turns and continue game
         xTurn = !xTurn;
-        return MoveResult.continueGame(xTurn ? "X" : "O");
+        return xTurn ? MoveResult.X_TO_MOVE : MoveResult.O_TO_MOVE;
+    }
+
+    /** Marks the game as over and journals it */
+    private void endGame() {
+        gameOver = true;
+        if (journal != null) {
+            try {
+                journal.append(board, secondPlayerStarted);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot journal game", e);
+            }
+        }
     }
 
     /**
@@ -84,65 +168,153 @@ public class GameState {
      * Clears the board and sets the turn to X.
      */
     public void reset() {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                board[r][c] = "";
-            }
-        }
+        reset(false);
+    }
+
+    /**
+     * Resets the game to its initial state.
+     *
+     * @param secondPlayerStarted true if the second player plays X in the new game
+     *                            (stored with the game in records and the journal)
+     */
+    public void reset(boolean secondPlayerStarted) {
+        board.clear();
         xTurn = true;
         gameOver = false;
+        historyLength = 0;
+        position = null;
+        this.secondPlayerStarted = secondPlayerStarted;
+    }
+
+    /* -------------------- History -------------------- */
+
+    /** @return number of moves on the board */
+    public int getPly() {
+        return board.getMoveCount();
+    }
+
+    /** @return number of moves in the history, including undone ones */
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    /** @return the cell of the given move in the history (0 = first move) */
+    public int getMove(int ply) {
+        if (ply < 0 || ply >= historyLength) {
+            throw new IndexOutOfBoundsException("Move " + ply + " of " + historyLength);
+        }
+        return history[ply];
+    }
+
+    public boolean canUndo() {
+        return board.getMoveCount() > 0;
+    }
+
+    public boolean canRedo() {
+        return board.getMoveCount() < historyLength;
     }
 
     /**
-     * @return true if all board cells are filled
+     * Takes back the last move; it can be redone until a new move is played.
+     *
+     * @return the cell of the move taken back, or -1 if there is none
      */
-    private boolean isBoardFull() {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                if (board[r][c].isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    public int undo() {
+        if (!canUndo()) return -1;
+        int cell = board.getLastMove();
+        board.unmakeMove();
+        updateStatus();
+        return cell;
     }
 
     /**
-     * Checks whether the given symbol has a winning line.
+     * Plays the next undone move again. Games finished by a redo are not
+     * journaled again.
+     *
+     * @return the cell of the move played, or -1 if there is none
      */
-    private int[][] findWinningLine(String symbol) {
-        // Check rows
-        for (int r = 0; r < SIZE; r++) {
-            if (symbol.equals(board[r][0])
-                    && symbol.equals(board[r][1])
-                    && symbol.equals(board[r][2])) {
-                return new int[][] { {r, 0}, {r, 1}, {r, 2} };
-            }
-        }
+    public int redo() {
+        if (!canRedo()) return -1;
+        int cell = history[board.getMoveCount()];
+        board.makeMove(cell);
+        updateStatus();
+        return cell;
+    }
 
-        // Check columns
-        for (int c = 0; c < SIZE; c++) {
-            if (symbol.equals(board[0][c])
-                    && symbol.equals(board[1][c])
-                    && symbol.equals(board[2][c])) {
-                return new int[][] { {0, c}, {1, c}, {2, c} };
-            }
+    /**
+     * Undoes or redoes moves until the given number of moves is on the board.
+     *
+     * @throws IllegalArgumentException if ply is outside 0 .. {@link #getHistoryLength}
+     */
+    public void goToPly(int ply) {
+        if (ply < 0 || ply > historyLength) {
+            throw new IllegalArgumentException("Ply must be 0.." + historyLength + ": " + ply);
         }
+        while (board.getMoveCount() > ply) board.unmakeMove();
+        while (board.getMoveCount() < ply) board.makeMove(history[board.getMoveCount()]);
+        updateStatus();
+    }
 
-        // Check diagonals
-        if (symbol.equals(board[0][0])
-                && symbol.equals(board[1][1])
-                && symbol.equals(board[2][2])) {
-            return new int[][] { {0, 0}, {1, 1}, {2, 2} };
+    /**
+     * Returns the state of the current position as a (shared) move result:
+     * the win or draw if the game is over, otherwise who is to move.
+     */
+    public MoveResult getStatus() {
+        if (board.getWinLine() >= 0) {
+            return rules.lines().winResult(board.getWinLine(), !board.isXToMove());
         }
-
-        if (symbol.equals(board[0][2])
-                && symbol.equals(board[1][1])
-                && symbol.equals(board[2][0])) {
-            return new int[][] { {0, 2}, {1, 1}, {2, 0} };
+        if (board.isFull()) {
+            return MoveResult.DRAW;
         }
+        return xTurn ? MoveResult.X_TO_MOVE : MoveResult.O_TO_MOVE;
+    }
 
-        return null;
+    /** Derives turn and game over from the board after stepping through the history */
+    private void updateStatus() {
+        position = null;
+        gameOver = board.isGameOver();
+        // As in play(): once the game is over, the turn stays with the last mover
+        xTurn = gameOver != board.isXToMove();
+    }
+
+    /**
+     * Copies the current board into a search board of the same variant.
+     * Lets engines work on their own board without allocating.
+     */
+    public void copyBoardTo(Board target) {
+        target.copyFrom(board);
+    }
+
+    /**
+     * Appends the game so far (moves, result and starter) to a record stream.
+     * The starter is the one given to {@link #reset(boolean)}, as in the journal.
+     */
+    public void writeRecord(GameRecordWriter writer) throws IOException {
+        writer.write(board, secondPlayerStarted);
+    }
+
+    /**
+     * Encodes the game so far into a buffer with room for
+     * {@link GameRecord#maxSize} bytes; see {@link GameRecord}.
+     *
+     * @return the number of bytes written
+     */
+    public int encodeRecord(byte[] buffer, int offset) {
+        return GameRecord.encode(board, secondPlayerStarted, buffer, offset);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current position. It can be handed
+     * to other threads and kept as long as needed; the same instance is
+     * returned until the position changes.
+     */
+    public Position getPosition() {
+        Position snapshot = position;
+        if (snapshot == null) {
+            snapshot = Position.of(board);
+            position = snapshot;
+        }
+        return snapshot;
     }
 
     /**
@@ -150,10 +322,10 @@ public class GameState {
      * Used by the AI to analyze possible moves without mutating game state.
      */
     public String[][] getBoardCopy() {
-        String[][] copy = new String[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                copy[r][c] = board[r][c];
+        String[][] copy = new String[getHeight()][getWidth()];
+        for (int r = 0; r < getHeight(); r++) {
+            for (int c = 0; c < getWidth(); c++) {
+                copy[r][c] = getCell(r, c);
             }
         }
         return copy;
@@ -161,6 +333,11 @@ public class GameState {
 
     /**
      * Immutable value object describing the result of a move.
+     *
+     * Results are shared flyweights: every outcome that {@link #play} can
+     * produce is preallocated (win results once per line and winner, see
+     * {@link Rules}), so playing a move allocates nothing. The winLine
+     * array is shared as well and must not be modified.
      */
     public static final class MoveResult {
 
@@ -181,6 +358,15 @@ public class GameState {
         /** Winning line coordinates, only set for WIN */
         public final int[][] winLine;
 
+        /* -------------------- Shared instances -------------------- */
+
+        static final MoveResult GAME_OVER = invalid("Game is over.");
+        static final MoveResult OUTSIDE_BOARD = invalid("Cell is outside the board.");
+        static final MoveResult CELL_USED = invalid("Cell already used.");
+        static final MoveResult X_TO_MOVE = new MoveResult(Type.CONTINUE, "X to move", null, null);
+        static final MoveResult O_TO_MOVE = new MoveResult(Type.CONTINUE, "O to move", null, null);
+        static final MoveResult DRAW = new MoveResult(Type.DRAW, "Draw!", null, null);
+
         private MoveResult(Type type, String message, String winner, int[][] winLine) {
             this.type = type;
             this.message = message;
@@ -193,8 +379,10 @@ public class GameState {
             return new MoveResult(Type.INVALID, msg, null, null);
         }
 
-        /** Creates a continue-game result */
+        /** Returns the continue-game result ("X" and "O" are shared instances) */
         public static MoveResult continueGame(String nextPlayer) {
+            if ("X".equals(nextPlayer)) return X_TO_MOVE;
+            if ("O".equals(nextPlayer)) return O_TO_MOVE;
             return new MoveResult(Type.CONTINUE, nextPlayer + " to move", null, null);
         }
 
@@ -203,9 +391,9 @@ public class GameState {
             return new MoveResult(Type.WIN, winner + " wins!", winner, winLine);
         }
 
-        /** Creates a draw result */
+        /** Returns the (shared) draw result */
         public static MoveResult draw() {
-            return new MoveResult(Type.DRAW, "Draw!", null, null);
+            return DRAW;
         }
     }
 }
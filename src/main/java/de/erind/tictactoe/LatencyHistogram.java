@@ -0,0 +1,88 @@
+package de.erind.tictactoe;
+
+/**
+ * Fixed-size histogram of latencies in nanoseconds.
+ *
+ * Values are grouped into log-linear buckets: every power of two is split
+ * into 8 sub-buckets, so percentiles are accurate to within 12.5%.
+ * Recording is a few arithmetic operations and never allocates.
+ *
+ * Not thread-safe: record into one histogram per thread and {@link #add} them.
+ */
+public final class LatencyHistogram {
+
+    /** Sub-buckets per power of two = 2^SUB_BITS */
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_COUNT];
+    private long total;
+    private long max;
+
+    /** Records one latency (negative values count as 0). */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        total++;
+        if (value > max) max = value;
+    }
+
+    /** Adds all values recorded in another histogram. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /** @return number of recorded values */
+    public long count() {
+        return total;
+    }
+
+    /** @return largest recorded value */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * Returns an upper bound for the given percentile (0..100),
+     * or 0 if nothing was recorded.
+     */
+    public long percentile(double percent) {
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(percent / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Maps a value to its bucket: small values get their own bucket,
+     * larger ones are bucketed by exponent and the next SUB_BITS bits.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_COUNT) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + mantissa;
+    }
+
+    /** Largest value that maps to the bucket */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        long mantissa = bucket % SUB_COUNT;
+        long lower = (1L << exponent) | (mantissa << (exponent - SUB_BITS));
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
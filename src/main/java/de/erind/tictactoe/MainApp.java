@@ -2,6 +2,7 @@ package de.erind.tictactoe;
 
 import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,6 +16,9 @@ import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Main JavaFX application class for the Tic-Tac-Toe game.
  *
@@ -22,24 +26,49 @@ import javafx.util.Duration;
  * - Builds and manages the JavaFX user interface
  * - Connects UI interactions with game logic (GameState)
  * - Coordinates AI moves and game flow
+ *
+ * AI searches run on a background worker thread, so a slow search never
+ * blocks rendering or input; the chosen move is applied on the FX thread.
+ * With MCTS, the worker also ponders on the player's time (see {@link Ponderer}).
  */
 public class MainApp extends Application {
 
     /** Artificial delay (ms) before the AI makes a move */
     private static final int AI_DELAY_MS = 400;
 
-    /** UI grid buttons representing the game board */
-    private final Button[][] cells = new Button[GameState.SIZE][GameState.SIZE];
-
     /** Core game logic and state */
     private final GameState game = new GameState();
 
+    /** UI grid buttons representing the game board */
+    private final Button[][] cells = new Button[game.getHeight()][game.getWidth()];
+
     /** Status text (current turn, win, draw) */
     private Label statusLabel;
 
     /** Scoreboard text */
     private Label scoreLabel;
 
+    /* -------------------- AI worker -------------------- */
+
+    /** Single daemon thread that runs AI searches one at a time */
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tictactoe-ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Pending AI delay, or null */
+    private PauseTransition aiPause;
+
+    /** Running AI search, or null; results of any other task are stale */
+    private Task<int[]> aiTask;
+
+    /** Searches the AI's answers to the player's likely moves while the player thinks */
+    private final Ponderer ponderer = new Ponderer(aiExecutor);
+
+    /** Scratch board for pondering and cache lookups */
+    private final Board aiBoard = new Board(game.getRules());
+
     /* -------------------- Score tracking -------------------- */
 
     private int player1Wins = 0;
@@ -65,6 +94,9 @@ public class MainApp extends Application {
      */
     private boolean secondPlayerStarts = false;
 
+    /** True once the current round has been counted in the score (undo and replay count once) */
+    private boolean roundScored = false;
+
     /* -------------------- Internal symbols -------------------- */
 
     /** Symbol used by Player 1 for the current round */
@@ -91,7 +123,7 @@ public class MainApp extends Application {
 
         difficultyLabel = new Label("Difficulty:");
         difficultyBox = new ComboBox<>();
-        difficultyBox.getItems().addAll("Easy", "Hard");
+        difficultyBox.getItems().addAll("Easy", "Hard", "MCTS", "MCTS (all cores)");
         difficultyBox.setValue("Easy");
 
         // Show/hide difficulty depending on selected mode
@@ -112,6 +144,14 @@ public class MainApp extends Application {
         newGameButton.getStyleClass().add("primary-button");
         newGameButton.setOnAction(e -> resetBoard(true));
 
+        Button undoButton = new Button("Undo");
+        undoButton.getStyleClass().add("primary-button");
+        undoButton.setOnAction(e -> undoMove());
+
+        Button redoButton = new Button("Redo");
+        redoButton.getStyleClass().add("primary-button");
+        redoButton.setOnAction(e -> redoMove());
+
         Button resetScoreButton = new Button("Reset Score");
         resetScoreButton.getStyleClass().add("primary-button");
         resetScoreButton.setOnAction(e -> {
@@ -122,7 +162,7 @@ public class MainApp extends Application {
             scoreLabel.setText(scoreText());
         });
 
-        HBox bottomBar = new HBox(10, newGameButton, resetScoreButton);
+        HBox bottomBar = new HBox(10, newGameButton, undoButton, redoButton, resetScoreButton);
         bottomBar.setAlignment(Pos.CENTER);
         bottomBar.setPadding(new Insets(10));
 
@@ -178,7 +218,7 @@ public class MainApp extends Application {
     }
 
     /**
-     * Creates the clickable 3x3 game board.
+     * Creates the clickable game board (3x3 for the classic rules).
      */
     private GridPane createBoard() {
         GridPane grid = new GridPane();
@@ -186,8 +226,8 @@ public class MainApp extends Application {
         grid.setHgap(12);
         grid.setVgap(12);
 
-        for (int r = 0; r < GameState.SIZE; r++) {
-            for (int c = 0; c < GameState.SIZE; c++) {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
                 Button cell = new Button("");
                 cell.setPrefSize(120, 120);
                 cell.getStyleClass().add("board-button");
@@ -232,40 +272,132 @@ public class MainApp extends Application {
     }
 
     /**
-     * Triggers the AI move after a short delay.
-     * The board is temporarily disabled to prevent input.
+     * Triggers the AI move after a short delay, or at once if the player's
+     * move was pondered. The board is disabled while the AI searches on the
+     * worker thread.
      */
     private void maybeAiMove() {
         if (!vsAiMode || game.isGameOver() || isPlayer1Turn()) return;
 
         disableBoard();
 
-        PauseTransition pause = new PauseTransition(Duration.millis(AI_DELAY_MS));
-        pause.setOnFinished(event -> {
-            TicTacToeAI.Difficulty diff =
-                    "Hard".equals(difficultyBox.getValue())
-                            ? TicTacToeAI.Difficulty.HARD
-                            : TicTacToeAI.Difficulty.EASY;
-
-            int[] move = TicTacToeAI.chooseMove(
-                    game.getBoardCopy(),
-                    secondPlayerSymbol,
-                    player1Symbol,
-                    diff
-            );
-
-            if (move != null) {
-                GameState.MoveResult result = game.play(move[0], move[1]);
-                refreshBoard();
-                applyResult(result);
+        // The player's move was pondered: answer without searching or waiting
+        ponderer.stop();
+        if (ponders(selectedDifficulty())) {
+            game.copyBoardTo(aiBoard);
+            int cell = ponderer.cachedMove(aiBoard);
+            if (cell >= 0) {
+                Rules rules = game.getRules();
+                applyAiMove(new int[]{rules.row(cell), rules.col(cell)});
+                return;
             }
+        }
+
+        aiPause = new PauseTransition(Duration.millis(AI_DELAY_MS));
+        aiPause.setOnFinished(event -> {
+            aiPause = null;
+            startAiSearch();
+        });
+        aiPause.play();
+    }
 
-            if (!game.isGameOver()) {
-                enableBoard();
+    /**
+     * Starts the AI search in the background on a snapshot of the position,
+     * so the worker never touches the live game state.
+     */
+    private void startAiSearch() {
+        TicTacToeAI.Difficulty diff = selectedDifficulty();
+        Rules rules = game.getRules();
+
+        // Immutable snapshot: safe to read on the worker while the UI goes on
+        Position position = game.getPosition();
+
+        Task<int[]> task = new Task<>() {
+            @Override
+            protected int[] call() {
+                int cell = TicTacToeAI.chooseMove(position, diff);
+                return cell < 0 ? null : new int[]{rules.row(cell), rules.col(cell)};
             }
+        };
+
+        // Task handlers run on the FX thread; ignore tasks that were cancelled or replaced
+        task.setOnSucceeded(event -> {
+            if (task != aiTask) return;
+            aiTask = null;
+            applyAiMove(task.getValue());
         });
+        task.setOnFailed(event -> {
+            if (task != aiTask) return;
+            aiTask = null;
+            statusLabel.setText("AI error: " + task.getException().getMessage());
+        });
+
+        aiTask = task;
+        aiExecutor.execute(task);
+    }
+
+    /**
+     * Plays the move chosen by the AI (on the FX thread).
+     */
+    private void applyAiMove(int[] move) {
+        if (move != null) {
+            GameState.MoveResult result = game.play(move[0], move[1]);
+            refreshBoard();
+            applyResult(result);
+        }
+
+        if (!game.isGameOver()) {
+            enableBoard();
+            maybePonder();
+        }
+    }
+
+    /**
+     * Starts pondering while the player is to move, if the difficulty
+     * benefits from it (see {@link #ponders}).
+     */
+    private void maybePonder() {
+        if (!vsAiMode || game.isGameOver() || !isPlayer1Turn()) return;
+        TicTacToeAI.Difficulty diff = selectedDifficulty();
+        if (!ponders(diff)) return;
+
+        game.copyBoardTo(aiBoard);
+        ponderer.ponder(aiBoard, diff);
+    }
+
+    /**
+     * Only the MCTS modes ponder: Easy plays random moves and Hard looks up
+     * the tablebase instantly, so there is nothing to prepare for them.
+     */
+    private static boolean ponders(TicTacToeAI.Difficulty difficulty) {
+        return difficulty == TicTacToeAI.Difficulty.MCTS
+                || difficulty == TicTacToeAI.Difficulty.PARALLEL_MCTS;
+    }
+
+    /** Difficulty selected in the UI */
+    private TicTacToeAI.Difficulty selectedDifficulty() {
+        return switch (difficultyBox.getValue()) {
+            case "Hard" -> TicTacToeAI.Difficulty.HARD;
+            case "MCTS" -> TicTacToeAI.Difficulty.MCTS;
+            case "MCTS (all cores)" -> TicTacToeAI.Difficulty.PARALLEL_MCTS;
+            default -> TicTacToeAI.Difficulty.EASY;
+        };
+    }
 
-        pause.play();
+    /**
+     * Cancels a pending or running AI move. A search that is already running
+     * finishes on the worker, but its result is discarded.
+     */
+    private void cancelAiMove() {
+        if (aiPause != null) {
+            aiPause.stop();
+            aiPause = null;
+        }
+        if (aiTask != null) {
+            aiTask.cancel();
+            aiTask = null;
+        }
+        ponderer.clear();
     }
 
     /**
@@ -275,13 +407,13 @@ public class MainApp extends Application {
         switch (result.type) {
             case CONTINUE -> updateTurnText();
             case DRAW -> {
-                draws++;
+                if (scoreRound()) draws++;
                 statusLabel.setText("Draw");
                 scoreLabel.setText(scoreText());
                 disableBoard();
             }
             case WIN -> {
-                awardWin(result.winner);
+                if (scoreRound()) awardWin(result.winner);
                 statusLabel.setText(winnerText(result.winner));
                 scoreLabel.setText(scoreText());
                 highlightWinningLine(result.winLine);
@@ -291,6 +423,63 @@ public class MainApp extends Application {
         }
     }
 
+    /**
+     * @return true the first time the round ends; a round finished again
+     *         after an undo is not counted twice
+     */
+    private boolean scoreRound() {
+        if (roundScored) return false;
+        roundScored = true;
+        return true;
+    }
+
+    /**
+     * Takes back the last move; against the AI, back to the player's last move.
+     */
+    private void undoMove() {
+        cancelAiMove();
+        game.undo();
+        while (vsAiMode && !isPlayer1Turn() && game.canUndo()) {
+            game.undo();
+        }
+        showPosition();
+    }
+
+    /**
+     * Replays the next undone move; against the AI, up to the player's next move.
+     */
+    private void redoMove() {
+        cancelAiMove();
+        game.redo();
+        while (vsAiMode && !game.isGameOver() && !isPlayer1Turn() && game.canRedo()) {
+            game.redo();
+        }
+        showPosition();
+    }
+
+    /**
+     * Redraws the board and status after stepping through the history,
+     * and lets the AI move if it is its turn.
+     */
+    private void showPosition() {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
+                cells[r][c].getStyleClass().remove("win-cell");
+            }
+        }
+        refreshBoard();
+        applyResult(game.getStatus());
+
+        if (!game.isGameOver()) {
+            enableBoard();
+            if (vsAiMode && !isPlayer1Turn()) {
+                maybeAiMove();
+            } else {
+                maybePonder();
+            }
+        }
+    }
+
     /**
      * Updates score counters based on the winning symbol.
      */
@@ -321,10 +510,13 @@ public class MainApp extends Application {
             secondPlayerSymbol = "X";
         }
 
-        game.reset();
+        // Drop any AI move computed for the previous round
+        cancelAiMove();
+        game.reset(secondPlayerStarts);
+        roundScored = false;
 
-        for (int r = 0; r < GameState.SIZE; r++) {
-            for (int c = 0; c < GameState.SIZE; c++) {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
                 Button cell = cells[r][c];
                 cell.setText("");
                 cell.setDisable(false);
@@ -335,9 +527,11 @@ public class MainApp extends Application {
         updateTurnText();
         scoreLabel.setText(scoreText());
 
-        // Let AI start if applicable
+        // Let AI start if applicable, otherwise think on the player's time
         if (vsAiMode && secondPlayerStarts) {
             maybeAiMove();
+        } else {
+            maybePonder();
         }
     }
 
@@ -366,8 +560,8 @@ public class MainApp extends Application {
      * Syncs UI board buttons with the current game state.
      */
     private void refreshBoard() {
-        for (int r = 0; r < GameState.SIZE; r++) {
-            for (int c = 0; c < GameState.SIZE; c++) {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
                 cells[r][c].setText(game.getCell(r, c));
             }
         }
@@ -375,8 +569,8 @@ public class MainApp extends Application {
 
     /** Disables all board buttons. */
     private void disableBoard() {
-        for (int r = 0; r < GameState.SIZE; r++) {
-            for (int c = 0; c < GameState.SIZE; c++) {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
                 cells[r][c].setDisable(true);
             }
         }
@@ -384,8 +578,8 @@ public class MainApp extends Application {
 
     /** Enables all board buttons. */
     private void enableBoard() {
-        for (int r = 0; r < GameState.SIZE; r++) {
-            for (int c = 0; c < GameState.SIZE; c++) {
+        for (int r = 0; r < game.getHeight(); r++) {
+            for (int c = 0; c < game.getWidth(); c++) {
                 cells[r][c].setDisable(false);
             }
         }
@@ -410,6 +604,15 @@ public class MainApp extends Application {
                 : "Player 1: " + player1Wins + "   Player 2: " + player2Wins + "   Draws: " + draws;
     }
 
+    /**
+     * Stops the AI worker when the window is closed.
+     */
+    @Override
+    public void stop() {
+        cancelAiMove();
+        aiExecutor.shutdownNow();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,291 @@
+package de.erind.tictactoe;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo Tree Search (UCT) on a {@link Board}, for any {@link Rules} variant.
+ *
+ * Each iteration walks down the tree by UCB1, expands a leaf, plays a random
+ * game to the end and backs the result up the path. The move played most
+ * often at the root is chosen.
+ *
+ * The tree lives in an arena of parallel primitive arrays: a node is an index,
+ * and the children of a node occupy one contiguous block, so expanding a node
+ * is a few array writes and no objects are created. Playouts use make/unmake
+ * on the caller's board and a reused move buffer, so a search allocates nothing.
+ * When the arena is full the tree stops growing; iterations continue with
+ * playouts from the existing leaves.
+ *
+ * Instances are not thread-safe: use one per thread.
+ */
+public final class MctsSearch {
+
+    /** Default arena size in nodes (about 6 MB) */
+    public static final int DEFAULT_MAX_NODES = 1 << 18;
+
+    /** UCB1 exploration constant (sqrt 2 for rewards in [0, 1]) */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /** Iterations between two deadline checks (a power of two) */
+    private static final int CHECK_INTERVAL = 1 << 6;
+
+    /* ---- Node arena: node i is described by index i in every array ---- */
+
+    /** Cell played to reach the node (-1 for the root) */
+    private final int[] moves;
+
+    /** First child in the arena; children are firstChild .. firstChild + childCount - 1 */
+    private final int[] firstChild;
+
+    /** Number of children, 0 until the node is expanded */
+    private final int[] childCount;
+
+    private final int[] visits;
+
+    /** Sum of rewards for the player who made the node's move (win 1, draw 0.5) */
+    private final double[] rewards;
+
+    private int nodeCount;
+
+    /* ---- Per-search buffers, sized for the current rules ---- */
+
+    /** Nodes of the current iteration, root first */
+    private int[] path = new int[0];
+
+    /** Empty cells of the current playout */
+    private int[] playoutMoves = new int[0];
+
+    /** Rules the buffers were last sized for */
+    private Rules rules;
+
+    private int iterations;
+
+    public MctsSearch() {
+        this(DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * @param maxNodes arena size in nodes
+     */
+    public MctsSearch(int maxNodes) {
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("Arena size must be positive: " + maxNodes);
+        }
+        moves = new int[maxNodes];
+        firstChild = new int[maxNodes];
+        childCount = new int[maxNodes];
+        visits = new int[maxNodes];
+        rewards = new double[maxNodes];
+    }
+
+    /**
+     * Returns the best cell for the player to move after searching for the
+     * given time, or -1 if the game is over. The board is left unchanged.
+     */
+    public int bestMove(Board board, long timeBudgetNanos, RandomGenerator rng) {
+        return bestMove(board, Integer.MAX_VALUE, timeBudgetNanos, rng);
+    }
+
+    /**
+     * Returns the best cell for the player to move after the given number of
+     * iterations or time, whichever runs out first; at least one iteration
+     * is always run. Returns -1 if the game is over. The board is left unchanged.
+     *
+     * @throws IllegalStateException if the arena cannot hold the root's children
+     */
+    public int bestMove(Board board, int maxIterations, long timeBudgetNanos, RandomGenerator rng) {
+        if (board.isGameOver()) return -1;
+        search(board, maxIterations, timeBudgetNanos, rng);
+
+        // Most visited move: more robust than the best average
+        int best = -1;
+        int end = firstChild[0] + childCount[0];
+        for (int child = firstChild[0]; child < end; child++) {
+            if (best < 0 || visits[child] > visits[best]) best = child;
+        }
+        return moves[best];
+    }
+
+    /**
+     * Builds a new tree for the position (game not over) within the given
+     * iterations and time; the result is read with {@link #addRootVisits}.
+     *
+     * @throws IllegalStateException if the arena cannot hold the root's children
+     */
+    void search(Board board, int maxIterations, long timeBudgetNanos, RandomGenerator rng) {
+        prepare(board.getRules());
+
+        long start = System.nanoTime();
+        nodeCount = 0;
+        newNode(-1);
+        iterations = 0;
+
+        do {
+            iterate(board, rng);
+            iterations++;
+        } while (iterations < maxIterations
+                && ((iterations & (CHECK_INTERVAL - 1)) != 0 || System.nanoTime() - start < timeBudgetNanos));
+
+        if (childCount[0] == 0) {
+            throw new IllegalStateException("Arena of " + moves.length + " nodes is too small for " + rules);
+        }
+    }
+
+    /**
+     * Adds the visits of each root move of the last search to visitsByCell[cell],
+     * so the trees of several searches can be merged.
+     */
+    void addRootVisits(long[] visitsByCell) {
+        int end = firstChild[0] + childCount[0];
+        for (int child = firstChild[0]; child < end; child++) {
+            visitsByCell[moves[child]] += visits[child];
+        }
+    }
+
+    /** @return iterations run by the last search */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /** @return arena nodes used by the last search */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * One iteration: selection, expansion, playout and backpropagation.
+     */
+    private void iterate(Board board, RandomGenerator rng) {
+        int rootMoveCount = board.getMoveCount();
+        int node = 0;
+        int depth = 0;
+        path[0] = node;
+
+        // Selection: descend through expanded nodes
+        while (childCount[node] > 0) {
+            node = selectChild(node);
+            board.makeMove(moves[node]);
+            path[++depth] = node;
+        }
+
+        // Expansion: a leaf gets children on its second visit (the root at once),
+        // which keeps single-visit leaves from filling the arena
+        if (!board.isGameOver() && (node == 0 || visits[node] > 0) && expand(board, node, rng)) {
+            node = selectChild(node);
+            board.makeMove(moves[node]);
+            path[++depth] = node;
+        }
+
+        int winner = playout(board, rng);
+
+        // Backpropagation: the move into path[i] was made by X iff its move number is even
+        for (int i = depth; i >= 0; i--) {
+            int n = path[i];
+            visits[n]++;
+            if (winner == Board.EMPTY) {
+                rewards[n] += 0.5;
+            } else {
+                boolean xMoved = ((rootMoveCount + i - 1) & 1) == 0;
+                if ((winner == Board.X) == xMoved) rewards[n] += 1;
+            }
+        }
+
+        for (int i = 0; i < depth; i++) {
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Returns the child with the highest UCB1 value; unvisited children first.
+     */
+    private int selectChild(int node) {
+        int first = firstChild[node];
+        int end = first + childCount[node];
+        double logVisits = Math.log(visits[node]);
+
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            int n = visits[child];
+            if (n == 0) return child;
+
+            double value = rewards[child] / n + EXPLORATION * Math.sqrt(logVisits / n);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a child for every empty cell, in random order so that unvisited
+     * children are not tried in board order.
+     *
+     * @return false if the arena has no room left
+     */
+    private boolean expand(Board board, int node, RandomGenerator rng) {
+        int count = board.getEmptyCount();
+        if (nodeCount + count > moves.length) return false;
+
+        int first = nodeCount;
+        board.generateMoves(playoutMoves);
+        for (int i = count - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int cell = playoutMoves[i];
+            playoutMoves[i] = playoutMoves[j];
+            playoutMoves[j] = cell;
+        }
+        for (int i = 0; i < count; i++) {
+            newNode(playoutMoves[i]);
+        }
+
+        firstChild[node] = first;
+        childCount[node] = count;
+        return true;
+    }
+
+    /**
+     * Plays random moves to the end of the game and takes them back.
+     *
+     * @return the winner ({@link Board#X}, {@link Board#O}) or {@link Board#EMPTY} for a draw
+     */
+    private int playout(Board board, RandomGenerator rng) {
+        int count = board.generateMoves(playoutMoves);
+        int played = 0;
+
+        while (!board.isGameOver()) {
+            // Pick a random remaining cell and swap the last one into its place
+            int i = rng.nextInt(count);
+            int cell = playoutMoves[i];
+            playoutMoves[i] = playoutMoves[--count];
+            board.makeMove(cell);
+            played++;
+        }
+
+        int winner = board.getWinner();
+        for (; played > 0; played--) {
+            board.unmakeMove();
+        }
+        return winner;
+    }
+
+    /** Appends an unexpanded node to the arena */
+    private void newNode(int move) {
+        int node = nodeCount++;
+        moves[node] = move;
+        firstChild[node] = 0;
+        childCount[node] = 0;
+        visits[node] = 0;
+        rewards[node] = 0;
+    }
+
+    /** Sizes the per-search buffers for the rules. */
+    private void prepare(Rules rules) {
+        if (rules.equals(this.rules)) return;
+
+        path = new int[rules.getCellCount() + 1];
+        playoutMoves = new int[rules.getCellCount()];
+        this.rules = rules;
+    }
+}
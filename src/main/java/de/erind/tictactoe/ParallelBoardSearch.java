@@ -0,0 +1,226 @@
+package de.erind.tictactoe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alpha-beta search with the root moves split over a fork-join pool.
+ *
+ * The first root move (the previous best when deepening) is searched alone
+ * to get a good bound; the remaining moves are then handed out in move order
+ * to one task per worker, each searching on its own copy of the board with
+ * the worker's {@link BoardSearch}.
+ * The best score so far is shared through an atomic alpha; each root move is
+ * searched with the alpha current when it starts. Running searches do not
+ * re-read it, so every score they store is classified against the window
+ * it was searched with. All workers also share
+ * one pair of lock-free transposition tables, so no subtree is solved twice
+ * once a worker has stored it.
+ *
+ * Scores are the same as {@link BoardSearch}; which of several equally good
+ * moves is returned may depend on timing. Safe to call from several threads;
+ * searches run one at a time, since they share the tables.
+ */
+public final class ParallelBoardSearch {
+
+    /** Slots of each shared transposition table */
+    private static final int TABLE_SLOTS = 1 << 18;
+
+    private final ForkJoinPool pool;
+
+    /** Tables shared by all workers (exhaustive and timed search) */
+    private final TranspositionTable table = new TranspositionTable(TABLE_SLOTS);
+    private final TranspositionTable depthTable = new TranspositionTable(TABLE_SLOTS);
+
+    /** Rules the tables were last used with */
+    private Rules rules;
+
+    /** Search state per worker thread, kept between searches */
+    private final ThreadLocal<BoardSearch> searches =
+            ThreadLocal.withInitial(() -> new BoardSearch(table, depthTable));
+
+    public ParallelBoardSearch(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Returns the best cell for the player to move with a full-depth search,
+     * or -1 if the game is over. The board is not modified.
+     */
+    public synchronized int bestMove(Board board) {
+        if (board.isGameOver()) return -1;
+        prepare(board.getRules());
+
+        int[] moves = new int[board.getRules().getCellCount()];
+        int count = board.generateMoves(moves);
+        Root root = new Root(board, moves, count, 0, 0, 0);
+        pool.invoke(root);
+        return root.bestMove();
+    }
+
+    /**
+     * Returns the best cell for the player to move, deepening one ply at a time
+     * until the time budget is used up (see {@link BoardSearch#bestMove(Board, long)}),
+     * or -1 if the game is over. The board is not modified.
+     */
+    public synchronized int bestMove(Board board, long timeBudgetNanos) {
+        if (board.isGameOver()) return -1;
+        prepare(board.getRules());
+
+        int[] moves = new int[board.getRules().getCellCount()];
+        int count = board.generateMoves(moves);
+        int emptyCount = board.getEmptyCount();
+        long start = System.nanoTime();
+        int bestMove = moves[0];
+
+        for (int depth = 1; depth <= emptyCount; depth++) {
+            Root root = new Root(board, moves, count, depth, start, timeBudgetNanos);
+            pool.invoke(root);
+            if (root.timedOut.get()) break;
+
+            bestMove = root.bestMove();
+            BoardSearch.moveToFront(moves, count, bestMove);
+
+            int score = root.bestScore();
+            if (Math.abs(score) >= BoardSearch.DEPTH_WIN
+                    && emptyCount - (Math.abs(score) - BoardSearch.DEPTH_WIN) <= depth) break;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Clears the shared tables when the rules change. This happens here, before
+     * any worker runs, because a worker clearing them would wipe the others' entries.
+     */
+    private void prepare(Rules rules) {
+        if (rules.equals(this.rules)) return;
+
+        table.clear();
+        depthTable.clear();
+        this.rules = rules;
+    }
+
+    /** Stops the worker threads; the instance cannot be used afterwards. */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Packs a score and a move so that a higher score compares greater */
+    private static long pack(int score, int move) {
+        return ((long) score << 32) | (move & 0xFFFFFFFFL);
+    }
+
+    /**
+     * One root search: the first move alone, then the others in parallel.
+     * Depth 0 means a full-depth search without deadline.
+     *
+     * Workers take the next move from a shared counter rather than being
+     * forked per move, so moves start in move order and the most promising
+     * ones raise alpha before the rest begin.
+     */
+    private final class Root extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int[] moves;
+        private final int count;
+        private final int depth;
+        private final long start;
+        private final long budget;
+
+        /** Best (score, move) found so far */
+        final AtomicLong best = new AtomicLong(pack(-BoardSearch.INFINITY, -1));
+
+        /** Score of best, read when a root move is started */
+        final AtomicInteger alpha = new AtomicInteger(-BoardSearch.INFINITY);
+        final AtomicBoolean timedOut = new AtomicBoolean();
+
+        /** Index of the next move to search */
+        private final AtomicInteger next = new AtomicInteger();
+
+        Root(Board board, int[] moves, int count, int depth, long start, long budget) {
+            this.board = board;
+            this.moves = moves;
+            this.count = count;
+            this.depth = depth;
+            this.start = start;
+            this.budget = budget;
+        }
+
+        int bestScore() {
+            return (int) (best.get() >> 32);
+        }
+
+        int bestMove() {
+            return (int) best.get();
+        }
+
+        @Override
+        protected void compute() {
+            searchMove(next.getAndIncrement());
+            if (count == 1 || timedOut.get()) return;
+
+            Worker[] workers = new Worker[Math.min(pool.getParallelism(), count - 1)];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Worker();
+            }
+            invokeAll(workers);
+        }
+
+        /**
+         * Only strictly better scores are taken: a score equal to the alpha
+         * it was searched with may be an upper bound.
+         */
+        void offer(int score, int move) {
+            long packed = pack(score, move);
+            long current = best.get();
+            while (score > (int) (current >> 32)) {
+                if (best.compareAndSet(current, packed)) {
+                    alpha.accumulateAndGet(score, Math::max);
+                    return;
+                }
+                current = best.get();
+            }
+        }
+
+        /** Searches one root move on a private copy of the board */
+        void searchMove(int index) {
+            Board copy = new Board(board);
+            BoardSearch search = searches.get();
+            int move = moves[index];
+
+            if (depth == 0) {
+                offer(search.searchRootMove(copy, move, alpha.get()), move);
+                return;
+            }
+
+            int score = search.searchRootMove(copy, move, depth, alpha.get(), start, budget);
+            if (search.isTimedOut()) {
+                timedOut.set(true);
+            } else {
+                offer(score, move);
+            }
+        }
+
+        /** Searches moves until none are left or time is up */
+        private final class Worker extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                int index;
+                while (!timedOut.get() && (index = next.getAndIncrement()) < count) {
+                    searchMove(index);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.erind.tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+/**
+ * Multi-threaded MCTS by root parallelization.
+ *
+ * Every worker thread builds its own tree for the same position with its own
+ * {@link MctsSearch} arena and random generator, so workers share nothing and
+ * never synchronize during the search. When the time is up, the visit counts
+ * of the root moves are summed over all trees and the most visited move wins.
+ * Playouts per second therefore scale with the number of workers.
+ *
+ * Safe to call from several threads, but concurrent searches queue for the
+ * same workers. The worker threads are daemons; {@link #shutdown} stops them.
+ */
+public final class ParallelMctsSearch {
+
+    private final int threads;
+    private final ExecutorService workers;
+
+    /** One arena per worker thread */
+    private final ThreadLocal<MctsSearch> searches = ThreadLocal.withInitial(MctsSearch::new);
+
+    /** Iterations of the last completed search, summed over all workers */
+    private volatile long lastIterations;
+
+    public ParallelMctsSearch(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tictactoe-mcts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the best cell for the player to move after searching for the
+     * given time on every worker, or -1 if the game is over.
+     * The board is not modified; each worker searches its own copy.
+     *
+     * @param rng seeds the workers' generators
+     */
+    public int bestMove(Board board, long timeBudgetNanos, RandomGenerator rng) {
+        if (board.isGameOver()) return -1;
+
+        // Exactly one task per worker, so all trees grow at the same time
+        List<Callable<Integer>> tasks = new ArrayList<>(threads);
+        long[] visitsByCell = new long[board.getRules().getCellCount()];
+        for (int i = 0; i < threads; i++) {
+            Board copy = new Board(board);
+            SplitMix64 workerRng = new SplitMix64(rng.nextLong());
+            tasks.add(() -> {
+                MctsSearch search = searches.get();
+                search.search(copy, Integer.MAX_VALUE, timeBudgetNanos, workerRng);
+                synchronized (visitsByCell) {
+                    search.addRootVisits(visitsByCell);
+                }
+                return search.getIterations();
+            });
+        }
+
+        long iterations = 0;
+        try {
+            for (Future<Integer> result : workers.invokeAll(tasks)) {
+                iterations += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("MCTS worker failed", e.getCause());
+        }
+        lastIterations = iterations;
+
+        int best = -1;
+        for (int cell = 0; cell < visitsByCell.length; cell++) {
+            if (visitsByCell[cell] > 0 && (best < 0 || visitsByCell[cell] > visitsByCell[best])) best = cell;
+        }
+        return best;
+    }
+
+    /** @return number of worker threads */
+    public int getThreads() {
+        return threads;
+    }
+
+    /** @return iterations (playouts) of the last completed search, over all workers */
+    public long getLastIterations() {
+        return lastIterations;
+    }
+
+    /** Stops the worker threads; the instance cannot be used afterwards. */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
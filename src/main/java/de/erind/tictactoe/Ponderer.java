@@ -0,0 +1,90 @@
+package de.erind.tictactoe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Thinks on the opponent's time.
+ *
+ * While the opponent is to move, {@link #ponder} searches the engine's answer
+ * to each possible reply in the background and caches it by Zobrist hash.
+ * When the opponent has moved, {@link #cachedMove} returns the answer
+ * immediately if that reply was already searched.
+ *
+ * The reply the engine itself would choose for the opponent is searched first,
+ * so the most likely position is usually ready. Pondering stops between
+ * replies when {@link #stop} is called; a single search is not interrupted.
+ *
+ * Control methods must be called from one thread (e.g. the UI thread);
+ * the searches run on the given executor.
+ */
+public final class Ponderer {
+
+    private final Executor executor;
+
+    /** Answers of the current ponder run: position hash -> cell */
+    private volatile Map<Long, Integer> answers = new ConcurrentHashMap<>();
+
+    /** Incremented to stop the current run; a run only continues while it matches */
+    private volatile int generation;
+
+    public Ponderer(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts pondering the given position (opponent to move) in the background,
+     * stopping any previous run and dropping its answers.
+     * The position is copied, so the caller may keep changing its board.
+     */
+    public void ponder(Board position, TicTacToeAI.Difficulty difficulty) {
+        stop();
+        Map<Long, Integer> runAnswers = new ConcurrentHashMap<>();
+        answers = runAnswers;
+        if (position.isGameOver()) return;
+
+        Board board = new Board(position);
+        int run = generation;
+        executor.execute(() -> ponder(board, difficulty, run, runAnswers));
+    }
+
+    /**
+     * Returns the cached answer for the position, or -1 if it was not pondered.
+     */
+    public int cachedMove(Board position) {
+        Integer cell = answers.get(position.getHash());
+        return cell != null && !position.isGameOver() && position.isEmpty(cell) ? cell : -1;
+    }
+
+    /** Stops the current run after the search in progress; cached answers are kept. */
+    public void stop() {
+        generation++;
+    }
+
+    /** Stops pondering and forgets all cached answers (e.g. for a new game). */
+    public void clear() {
+        stop();
+        answers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Searches the answer to every reply, most likely reply first.
+     * Runs on the executor; each run writes only to its own map.
+     */
+    private void ponder(Board board, TicTacToeAI.Difficulty difficulty, int run, Map<Long, Integer> runAnswers) {
+        int[] replies = new int[board.getRules().getCellCount()];
+        int count = board.generateMoves(replies);
+        BoardSearch.moveToFront(replies, count, TicTacToeAI.chooseMove(board, difficulty));
+
+        for (int i = 0; i < count; i++) {
+            if (run != generation) return;
+
+            board.makeMove(replies[i]);
+            if (!board.isGameOver()) {
+                runAnswers.put(board.getHash(), TicTacToeAI.chooseMove(board, difficulty));
+            }
+            board.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a position: which player holds which cell.
+ *
+ * Boards of up to 32 cells (classic 3x3 included) are packed into a single
+ * long: X cells in bits 0-31, O cells in bits 32-63. Larger boards keep
+ * 64 cells per word, 16 words per chunk; {@link #play} copies only the
+ * chunk that changes and the mover's chunk index, and shares everything
+ * else with the previous position.
+ *
+ * Positions are values (equal if the rules and the stones are equal), so
+ * they can be handed between threads, used as cache keys and kept in
+ * histories without copying. Search on a position with {@link #copyTo}.
+ */
+public final class Position {
+
+    /** Boards up to this many cells are packed into one long */
+    static final int PACKED_CELLS = 32;
+
+    /** Words per chunk of a large board */
+    private static final int CHUNK_WORDS = 16;
+
+    private static final long LOW_HALF = 0xFFFF_FFFFL;
+
+    private final Rules rules;
+
+    /** Small boards: X cells in the low half, O cells in the high half */
+    private final long packed;
+
+    /** Large boards: cell c at bit c % 64 of word c / 64; chunks are shared. Null for small boards */
+    private final long[][] xChunks;
+    private final long[][] oChunks;
+
+    private final int moveCount;
+
+    /** Last cell played, or -1 on an empty board */
+    private final int lastMove;
+
+    /** Line completed by the last move, or -1 */
+    private final int winLine;
+
+    private Position(Rules rules, long packed, long[][] xChunks, long[][] oChunks,
+                     int moveCount, int lastMove, int winLine) {
+        this.rules = rules;
+        this.packed = packed;
+        this.xChunks = xChunks;
+        this.oChunks = oChunks;
+        this.moveCount = moveCount;
+        this.lastMove = lastMove;
+        this.winLine = winLine;
+    }
+
+    /** @return the empty position of the variant */
+    public static Position empty(Rules rules) {
+        if (rules.getCellCount() <= PACKED_CELLS) {
+            return new Position(rules, 0, null, null, 0, -1, -1);
+        }
+        int chunks = (words(rules) + CHUNK_WORDS - 1) / CHUNK_WORDS;
+        return new Position(rules, 0, emptyChunks(rules, chunks), emptyChunks(rules, chunks), 0, -1, -1);
+    }
+
+    /** @return a snapshot of the board */
+    public static Position of(Board board) {
+        Rules rules = board.getRules();
+        if (rules.getCellCount() <= PACKED_CELLS) {
+            long packed = board.getBits(Board.X, 0) | board.getBits(Board.O, 0) << PACKED_CELLS;
+            return new Position(rules, packed, null, null, board.getMoveCount(), board.getLastMove(), board.getWinLine());
+        }
+
+        int words = words(rules);
+        int chunks = (words + CHUNK_WORDS - 1) / CHUNK_WORDS;
+        long[][] x = emptyChunks(rules, chunks);
+        long[][] o = emptyChunks(rules, chunks);
+        for (int w = 0; w < words; w++) {
+            x[w / CHUNK_WORDS][w % CHUNK_WORDS] = board.getBits(Board.X, w);
+            o[w / CHUNK_WORDS][w % CHUNK_WORDS] = board.getBits(Board.O, w);
+        }
+        return new Position(rules, 0, x, o, board.getMoveCount(), board.getLastMove(), board.getWinLine());
+    }
+
+    /**
+     * Returns the position after the player to move takes the cell.
+     *
+     * @throws IllegalStateException if the game is over or the cell is occupied
+     */
+    public Position play(int cell) {
+        if (isGameOver() || !isEmpty(cell)) {
+            throw new IllegalStateException("Illegal move: " + cell);
+        }
+
+        boolean x = isXToMove();
+        Position next;
+        if (xChunks == null) {
+            long bit = 1L << (x ? cell : PACKED_CELLS + cell);
+            next = new Position(rules, packed | bit, null, null, moveCount + 1, cell, -1);
+        } else {
+            // Copy the path to the changed word; share all other chunks
+            long[][] chunks = (x ? xChunks : oChunks).clone();
+            int w = cell >>> 6;
+            long[] chunk = chunks[w / CHUNK_WORDS].clone();
+            chunk[w % CHUNK_WORDS] |= 1L << cell;
+            chunks[w / CHUNK_WORDS] = chunk;
+            next = new Position(rules, 0, x ? chunks : xChunks, x ? oChunks : chunks, moveCount + 1, cell, -1);
+        }
+
+        int line = next.lineCompletedBy(cell, x ? Board.X : Board.O);
+        return line < 0 ? next : new Position(rules, next.packed, next.xChunks, next.oChunks, next.moveCount, cell, line);
+    }
+
+    /**
+     * Sets the board (same rules) to this position. The stones are placed in
+     * alternating order with the last move last, so the board reports the
+     * same winner and win line.
+     *
+     * @throws IllegalArgumentException if the board uses other rules
+     */
+    public void copyTo(Board board) {
+        if (!board.getRules().equals(rules)) {
+            throw new IllegalArgumentException("Position is for " + rules + ", board is " + board.getRules());
+        }
+
+        board.clear();
+        int nextX = -1;
+        int nextO = -1;
+        for (int i = 0; i < moveCount - 1; i++) {
+            if ((i & 1) == 0) {
+                nextX = nextStone(Board.X, nextX + 1);
+                board.makeMove(nextX);
+            } else {
+                nextO = nextStone(Board.O, nextO + 1);
+                board.makeMove(nextO);
+            }
+        }
+        if (moveCount > 0) board.makeMove(lastMove);
+    }
+
+    /** @return a new board holding this position */
+    public Board toBoard() {
+        Board board = new Board(rules);
+        copyTo(board);
+        return board;
+    }
+
+    /* -------------------- Queries -------------------- */
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /** @return {@link Board#X}, {@link Board#O} or {@link Board#EMPTY} */
+    public int get(int cell) {
+        if (bit(Board.X, cell)) return Board.X;
+        if (bit(Board.O, cell)) return Board.O;
+        return Board.EMPTY;
+    }
+
+    /**
+     * @return "X", "O" or "" like {@link GameState#getCell}
+     * @throws IndexOutOfBoundsException if (row, col) is outside the board
+     */
+    public String getCell(int row, int col) {
+        if (!rules.contains(row, col)) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is outside the " + rules + " board");
+        }
+        return switch (get(rules.cell(row, col))) {
+            case Board.X -> "X";
+            case Board.O -> "O";
+            default -> "";
+        };
+    }
+
+    public boolean isEmpty(int cell) {
+        return get(cell) == Board.EMPTY;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** @return the last move played, or -1 on an empty board */
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    public boolean isXToMove() {
+        return (moveCount & 1) == 0;
+    }
+
+    /** @return the winning player, or {@link Board#EMPTY} if nobody has won */
+    public int getWinner() {
+        if (winLine < 0) return Board.EMPTY;
+        return (moveCount & 1) == 1 ? Board.X : Board.O;
+    }
+
+    /** @return the line completed by the winning move, or -1 */
+    public int getWinLine() {
+        return winLine;
+    }
+
+    public boolean isFull() {
+        return moveCount == rules.getCellCount();
+    }
+
+    public boolean isGameOver() {
+        return winLine >= 0 || isFull();
+    }
+
+    /* -------------------- Value semantics -------------------- */
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Position p
+                && p.rules.equals(rules)
+                && (xChunks == null
+                        ? p.packed == packed
+                        : Arrays.deepEquals(p.xChunks, xChunks) && Arrays.deepEquals(p.oChunks, oChunks));
+    }
+
+    @Override
+    public int hashCode() {
+        return xChunks == null
+                ? rules.hashCode() * 31 + Long.hashCode(packed)
+                : (rules.hashCode() * 31 + Arrays.deepHashCode(xChunks)) * 31 + Arrays.deepHashCode(oChunks);
+    }
+
+    /** Board rows with X, O and . for empty cells, separated by / */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(rules.getCellCount() + rules.getHeight());
+        for (int cell = 0; cell < rules.getCellCount(); cell++) {
+            if (cell > 0 && cell % rules.getWidth() == 0) sb.append('/');
+            sb.append(switch (get(cell)) {
+                case Board.X -> 'X';
+                case Board.O -> 'O';
+                default -> '.';
+            });
+        }
+        return sb.toString();
+    }
+
+    /* -------------------- Bits -------------------- */
+
+    private boolean bit(int player, int cell) {
+        return (word(player, cell >>> 6) & 1L << cell) != 0;
+    }
+
+    /** @return 64 cells of the player starting at cell 64 * w */
+    private long word(int player, int w) {
+        if (xChunks == null) {
+            if (w != 0) return 0;
+            return player == Board.X ? packed & LOW_HALF : packed >>> PACKED_CELLS;
+        }
+        long[][] chunks = player == Board.X ? xChunks : oChunks;
+        return chunks[w / CHUNK_WORDS][w % CHUNK_WORDS];
+    }
+
+    /** @return the first cell at or after from held by the player, skipping the last move */
+    private int nextStone(int player, int from) {
+        for (int w = from >>> 6; w < words(rules); w++) {
+            long bits = word(player, w);
+            if (w == from >>> 6) bits &= -1L << from;
+            if (w == lastMove >>> 6 && lastMove >= 0) bits &= ~(1L << lastMove);
+            if (bits != 0) return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        throw new IllegalStateException("Stone count does not match move count");
+    }
+
+    /** @return a line through the cell held entirely by the player, or -1 */
+    private int lineCompletedBy(int cell, int player) {
+        Rules.Lines lines = rules.lines();
+        int winLength = rules.getWinLength();
+        for (int i = lines.byCellStart[cell]; i < lines.byCellStart[cell + 1]; i++) {
+            int line = lines.byCell[i];
+            int j = 0;
+            while (j < winLength && bit(player, lines.cells[line * winLength + j])) j++;
+            if (j == winLength) return line;
+        }
+        return -1;
+    }
+
+    private static int words(Rules rules) {
+        return (rules.getCellCount() + 63) >>> 6;
+    }
+
+    private static long[][] emptyChunks(Rules rules, int count) {
+        long[][] chunks = new long[count][];
+        int words = words(rules);
+        for (int c = 0; c < count; c++) {
+            chunks[c] = new long[Math.min(CHUNK_WORDS, words - c * CHUNK_WORDS)];
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,326 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of a game variant: board width, height and
+ * the number of stones in a row needed to win.
+ *
+ * Examples:
+ * - classic Tic-Tac-Toe: 3x3, 3 in a row ({@link #CLASSIC})
+ * - 4x4, 4 in a row
+ * - Gomoku: 15x15, 5 in a row
+ *
+ * Cells are numbered row by row: cell = row * width + col.
+ *
+ * A "line" is every run of winLength consecutive cells in a row, column or
+ * diagonal; a player wins by filling one. The lines are enumerated once per
+ * Rules instance (see {@link Lines}) so move handling can update per-line
+ * counters instead of scanning the board.
+ */
+public final class Rules {
+
+    /** Largest supported board width or height */
+    public static final int MAX_SIZE = 255;
+
+    /** Classic 3x3 Tic-Tac-Toe */
+    public static final Rules CLASSIC = new Rules(GameState.SIZE, GameState.SIZE, GameState.SIZE);
+
+    private final int width;
+    private final int height;
+    private final int winLength;
+
+    /** Line tables, built on first use */
+    private volatile Lines lines;
+
+    /** Zobrist keys, built on first use */
+    private volatile long[] zobristKeys;
+
+    /** Board symmetries, built on first use */
+    private volatile Symmetries symmetries;
+
+    /**
+     * Creates a variant.
+     *
+     * @throws IllegalArgumentException if a dimension is out of range or
+     *                                  the win length does not fit on the board
+     */
+    public Rules(int width, int height, int winLength) {
+        if (width < 1 || width > MAX_SIZE || height < 1 || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be 1.." + MAX_SIZE + ": " + width + "x" + height);
+        }
+        if (winLength < 1 || winLength > Math.max(width, height)) {
+            throw new IllegalArgumentException("Win length does not fit on a " + width + "x" + height + " board: " + winLength);
+        }
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /** @return total number of cells */
+    public int getCellCount() {
+        return width * height;
+    }
+
+    /** @return true for classic 3x3 Tic-Tac-Toe */
+    public boolean isClassic() {
+        return equals(CLASSIC);
+    }
+
+    /** @return true if (row, col) lies on the board */
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < height && col >= 0 && col < width;
+    }
+
+    /** @return cell index of (row, col) */
+    public int cell(int row, int col) {
+        return row * width + col;
+    }
+
+    public int row(int cell) {
+        return cell / width;
+    }
+
+    public int col(int cell) {
+        return cell % width;
+    }
+
+    /** @return number of winning lines on the board */
+    public int getLineCount() {
+        return lines().count;
+    }
+
+    /**
+     * Returns the line tables, building them on first use.
+     * Building is idempotent, so a race only costs duplicate work.
+     */
+    Lines lines() {
+        Lines result = lines;
+        if (result == null) {
+            result = new Lines(this);
+            lines = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the Zobrist keys of the variant: X stones at [cell],
+     * O stones at [cellCount + cell]. For the classic board these are
+     * the same keys as {@link Zobrist#X_KEYS} and {@link Zobrist#O_KEYS}.
+     */
+    long[] zobristKeys() {
+        long[] result = zobristKeys;
+        if (result == null) {
+            result = Zobrist.newKeys(2 * getCellCount());
+            zobristKeys = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the symmetries of the board, building them on first use.
+     */
+    Symmetries symmetries() {
+        Symmetries result = symmetries;
+        if (result == null) {
+            result = new Symmetries(width, height);
+            symmetries = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Rules r
+                && r.width == width
+                && r.height == height
+                && r.winLength == winLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return (width * 31 + height) * 31 + winLength;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + ", " + winLength + " in a row";
+    }
+
+    /**
+     * Precomputed winning lines, stored in flat int arrays.
+     *
+     * Lines are numbered by direction (rows, columns, diagonals, anti-diagonals),
+     * then by start cell, so a move completing two lines reports the row first.
+     */
+    static final class Lines {
+
+        /** Line directions: row, column, diagonal, anti-diagonal */
+        private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+        /** Number of lines */
+        final int count;
+
+        /** Cells of line i, in board order: cells[i * winLength .. (i + 1) * winLength) */
+        final int[] cells;
+
+        /** Lines through cell c: byCell[byCellStart[c] .. byCellStart[c + 1]) */
+        final int[] byCellStart;
+        final int[] byCell;
+
+        private final int winLength;
+        private final int width;
+
+        /** Shared win results, built on first use: X wins at [line], O wins at [count + line] */
+        private final GameState.MoveResult[] winResults;
+
+        private Lines(Rules rules) {
+            int k = rules.winLength;
+            winLength = k;
+            width = rules.width;
+
+            // Count lines to size the arrays
+            int lineCount = 0;
+            for (int[] dir : DIRECTIONS) {
+                for (int r = 0; r < rules.height; r++) {
+                    for (int c = 0; c < rules.width; c++) {
+                        if (fits(rules, r, c, dir)) lineCount++;
+                    }
+                }
+            }
+
+            count = lineCount;
+            cells = new int[lineCount * k];
+            winResults = new GameState.MoveResult[2 * lineCount];
+            int[] perCell = new int[rules.getCellCount()];
+
+            int line = 0;
+            for (int[] dir : DIRECTIONS) {
+                for (int r = 0; r < rules.height; r++) {
+                    for (int c = 0; c < rules.width; c++) {
+                        if (!fits(rules, r, c, dir)) continue;
+                        for (int i = 0; i < k; i++) {
+                            int cell = rules.cell(r + i * dir[0], c + i * dir[1]);
+                            cells[line * k + i] = cell;
+                            perCell[cell]++;
+                        }
+                        line++;
+                    }
+                }
+            }
+
+            // Invert into lines per cell (line ids stay in ascending order)
+            byCellStart = new int[perCell.length + 1];
+            for (int cell = 0; cell < perCell.length; cell++) {
+                byCellStart[cell + 1] = byCellStart[cell] + perCell[cell];
+            }
+            byCell = new int[byCellStart[perCell.length]];
+            int[] next = Arrays.copyOf(byCellStart, perCell.length);
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < k; j++) {
+                    byCell[next[cells[i * k + j]]++] = i;
+                }
+            }
+        }
+
+        /**
+         * Returns the shared win result for a line. Results are immutable,
+         * so a race between threads only creates a duplicate.
+         */
+        GameState.MoveResult winResult(int line, boolean xWins) {
+            int slot = xWins ? line : count + line;
+            GameState.MoveResult result = winResults[slot];
+            if (result == null) {
+                result = GameState.MoveResult.win(xWins ? "X" : "O", coordinates(line));
+                winResults[slot] = result;
+            }
+            return result;
+        }
+
+        /**
+         * Converts a line into {row, col} coordinates, in board order.
+         */
+        int[][] coordinates(int line) {
+            int[][] coords = new int[winLength][];
+            for (int i = 0; i < winLength; i++) {
+                int cell = cells[line * winLength + i];
+                coords[i] = new int[] { cell / width, cell % width };
+            }
+            return coords;
+        }
+
+        /** @return true if a line starting at (row, col) in the direction stays on the board */
+        private static boolean fits(Rules rules, int row, int col, int[] dir) {
+            int k = rules.winLength - 1;
+            return rules.contains(row + k * dir[0], col + k * dir[1]);
+        }
+    }
+
+    /**
+     * Symmetries of the board: all 8 rotations and reflections of a square
+     * board, or the 4 that keep a rectangular board's shape (identity,
+     * 180 degree rotation and both mirrors). Every one maps lines onto lines,
+     * so symmetric positions are equivalent.
+     *
+     * Transforms use the numbering of {@link Symmetry}: mirror first (t >= 4),
+     * then rotate clockwise t % 4 times; on a 3x3 board the maps are the same.
+     */
+    static final class Symmetries {
+
+        /** Number of transforms; transform 0 is the identity */
+        final int count;
+
+        /** cellMap[i][cell] = cell that the given cell moves to under transform i */
+        final int[][] cellMap;
+
+        /** inverseMap[i][cell] = cell that moves to the given cell under transform i */
+        final int[][] inverseMap;
+
+        private Symmetries(int width, int height) {
+            boolean square = width == height;
+            count = square ? 8 : 4;
+            cellMap = new int[count][width * height];
+            inverseMap = new int[count][width * height];
+
+            int i = 0;
+            for (int t = 0; t < 8; t++) {
+                // Quarter turns swap width and height
+                if (!square && t % 2 == 1) continue;
+
+                for (int r = 0; r < height; r++) {
+                    for (int c = 0; c < width; c++) {
+                        int row = r;
+                        int col = t >= 4 ? width - 1 - c : c;
+                        int rows = height;
+                        int cols = width;
+                        for (int q = 0; q < t % 4; q++) {
+                            int rotated = row;
+                            row = col;
+                            col = rows - 1 - rotated;
+                            int swap = rows;
+                            rows = cols;
+                            cols = swap;
+                        }
+                        int from = r * width + c;
+                        int to = row * cols + col;
+                        cellMap[i][from] = to;
+                        inverseMap[i][to] = from;
+                    }
+                }
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.erind.tictactoe;
+
+import java.util.Locale;
+
+/**
+ * Checks {@link ParallelBoardSearch} against the sequential {@link BoardSearch}.
+ *
+ * Random positions are drawn by playing random stones on an empty board.
+ * For each position, one reused parallel search picks a move, and the
+ * sequential search checks that the move keeps the position's exact value.
+ * The parallel search keeps its shared transposition tables between
+ * positions, like the instance behind {@link TicTacToeAI.Search#PARALLEL_ALPHA_BETA},
+ * so entries stored by one search are trusted by the next.
+ *
+ * Run with: ./gradlew checkSearch --args="--positions 300 --seed 1"
+ */
+public final class SearchCheck {
+
+    /** Utility class: prevent instantiation */
+    private SearchCheck() {}
+
+    /**
+     * Searches the positions and counts the moves whose value is below the
+     * position's value.
+     *
+     * @param stones random stones played before each search (no position is over)
+     * @return the number of suboptimal moves
+     */
+    public static int check(Rules rules, int stones, int positions, long seed, ParallelBoardSearch parallel) {
+        BoardSearch sequential = new BoardSearch();
+        SplitMix64 rng = new SplitMix64(seed);
+        Board board = new Board(rules);
+        int failures = 0;
+
+        for (int p = 0; p < positions; p++) {
+            randomPosition(board, stones, rng);
+
+            int move = parallel.bestMove(board);
+            int value = sequential.evaluate(board);
+            board.makeMove(move);
+            int moveValue = -sequential.evaluate(board);
+            board.unmakeMove();
+
+            if (moveValue != value) {
+                failures++;
+                System.out.printf(Locale.ROOT, "  %s: move %d scores %d, position value %d%n",
+                        Position.of(board), move, moveValue, value);
+            }
+        }
+        return failures;
+    }
+
+    /** Sets the board to random stones of alternating players, with no line completed */
+    private static void randomPosition(Board board, int stones, SplitMix64 rng) {
+        int[] moves = new int[board.getRules().getCellCount()];
+        do {
+            board.clear();
+            while (board.getMoveCount() < stones && !board.isGameOver()) {
+                int count = board.generateMoves(moves);
+                board.makeMove(moves[rng.nextInt(count)]);
+            }
+        } while (board.isGameOver());
+    }
+
+    /* -------------------- Command line -------------------- */
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: SearchCheck [options]",
+            "  --positions N    random positions to check (default 300)",
+            "  --stones N       random stones per position (default 2)",
+            "  --width N        board width (default 4)",
+            "  --height N       board height (default 4)",
+            "  --win N          stones in a row needed to win (default 3)",
+            "  --seed N         seed of the positions (default 1)",
+            "  --threads N      parallel search threads (default 8)");
+
+    public static void main(String[] args) {
+        int positions = 300;
+        int stones = 2;
+        int width = 4;
+        int height = 4;
+        int winLength = 3;
+        long seed = 1;
+        int threads = 8;
+        Rules rules;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+                String value = args[++i];
+                switch (option) {
+                    case "--positions" -> positions = Integer.parseInt(value);
+                    case "--stones" -> stones = Integer.parseInt(value);
+                    case "--width" -> width = Integer.parseInt(value);
+                    case "--height" -> height = Integer.parseInt(value);
+                    case "--win" -> winLength = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+            rules = new Rules(width, height, winLength);
+            if (stones < 0 || stones >= rules.getCellCount()) {
+                throw new IllegalArgumentException("Stones must be 0.." + (rules.getCellCount() - 1) + ": " + stones);
+            }
+            if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        System.out.printf(Locale.ROOT, "Search check: %,d positions with %d stones on %s, %d thread(s), seed %d%n",
+                positions, stones, rules, threads, seed);
+        ParallelBoardSearch parallel = new ParallelBoardSearch(threads);
+        try {
+            int failures = check(rules, stones, positions, seed, parallel);
+            System.out.printf(Locale.ROOT, "  %d of %,d moves suboptimal%n", failures, positions);
+            if (failures > 0) System.exit(1);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+}
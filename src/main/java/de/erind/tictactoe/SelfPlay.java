@@ -0,0 +1,420 @@
+package de.erind.tictactoe;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Headless self-play simulator: plays many games between two AI engines
+ * without any UI and reports results, throughput and move latency.
+ *
+ * The engines swap sides every game (like "New Game" in the UI), so neither
+ * always has the first move. Games are driven through {@link GameState#play}
+ * and moves come from {@link TicTacToeAI#chooseMove(Board, TicTacToeAI.Difficulty)},
+ * so the loop allocates nothing per game.
+ *
+ * Games can also be spread over a {@link ForkJoinPool}: the game range is split
+ * into batches, each batch plays on its own GameState and Board, and the
+ * per-batch stats are merged when the tasks join, so workers share no mutable
+ * state and never lock.
+ *
+ * Randomness comes from {@link ThreadLocalRandom} unless a seed is given.
+ * With a seed, every game gets its own generator state derived from
+ * (seed, game index), so a run of EASY and classic HARD engines gives the
+ * same results for any thread count. MCTS, PARALLEL_MCTS and HARD on other
+ * boards search against a time budget, so their moves still depend on timing.
+ *
+ * Games can be archived as {@link GameRecord}s: each worker encodes its games
+ * into a local block and hands full blocks to the shared writer, so the lock
+ * is taken once per block rather than once per game. Games can also be
+ * appended to a memory-mapped {@link GameJournal} as they finish.
+ *
+ * Run with: ./gradlew simulate --args="--games 1000000 --engine1 hard --engine2 easy"
+ */
+public final class SelfPlay {
+
+    /** Games per fork-join leaf task; large enough to amortize task overhead */
+    private static final long BATCH_SIZE = 10_000;
+
+    /** Bytes of game records a worker collects before writing them */
+    private static final int RECORD_BLOCK_SIZE = 1 << 16;
+
+    private final Rules rules;
+    private final TicTacToeAI.Difficulty engine1;
+    private final TicTacToeAI.Difficulty engine2;
+
+    /** True if games are seeded from {@link #seed} */
+    private final boolean seeded;
+    private final long seed;
+
+    /** Archive for the games played, or null */
+    private volatile GameRecordWriter recorder;
+
+    /** Journal for the games played, or null */
+    private volatile GameJournal journal;
+
+    /** Creates an unseeded simulator (fast, per-thread randomness). */
+    public SelfPlay(Rules rules, TicTacToeAI.Difficulty engine1, TicTacToeAI.Difficulty engine2) {
+        this(rules, engine1, engine2, false, 0);
+    }
+
+    /**
+     * Creates a simulator whose games are reproducible from the seed,
+     * as far as the engines are not time-budgeted (see the class doc).
+     */
+    public SelfPlay(Rules rules, TicTacToeAI.Difficulty engine1, TicTacToeAI.Difficulty engine2, long seed) {
+        this(rules, engine1, engine2, true, seed);
+    }
+
+    private SelfPlay(Rules rules, TicTacToeAI.Difficulty engine1, TicTacToeAI.Difficulty engine2,
+                     boolean seeded, long seed) {
+        this.rules = rules;
+        this.engine1 = engine1;
+        this.engine2 = engine2;
+        this.seeded = seeded;
+        this.seed = seed;
+    }
+
+    /**
+     * Archives every game played from now on to the writer (null to stop).
+     * Writes are synchronized on the writer; the caller flushes and closes it.
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /** Appends every game played from now on to the journal (null to stop). */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Plays the given number of games on the calling thread.
+     */
+    public Stats play(long games) {
+        long start = System.nanoTime();
+        Stats stats = playRange(0, games);
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    /**
+     * Plays the given number of games on a fork-join pool with the given
+     * number of worker threads.
+     */
+    public Stats play(long games, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Stats stats = pool.invoke(new Batch(0, games));
+            stats.elapsedNanos = System.nanoTime() - start;
+            return stats;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays games [from, to) sequentially on a fresh GameState and Board.
+     * Engine 1 plays X in even-numbered games.
+     */
+    private Stats playRange(long from, long to) {
+        GameState game = new GameState(rules);
+        game.setJournal(journal);
+        Board scratch = new Board(rules);
+        Stats stats = new Stats();
+        SplitMix64 seededRng = seeded ? new SplitMix64(seed) : null;
+        GameRecordWriter recorder = this.recorder;
+        int maxRecordSize = GameRecord.maxSize(rules);
+        byte[] records = recorder == null ? null : new byte[Math.max(RECORD_BLOCK_SIZE, maxRecordSize)];
+        int recordBytes = 0;
+
+        for (long g = from; g < to; g++) {
+            RandomGenerator rng;
+            if (seeded) {
+                seededRng.setSeed(SplitMix64.seedFor(seed, g));
+                rng = seededRng;
+            } else {
+                rng = ThreadLocalRandom.current();
+            }
+            playGame(game, scratch, g % 2 == 0, rng, stats);
+
+            if (records != null) {
+                if (recordBytes + maxRecordSize > records.length) {
+                    writeRecords(recorder, records, recordBytes);
+                    recordBytes = 0;
+                }
+                recordBytes += game.encodeRecord(records, recordBytes);
+            }
+        }
+        if (records != null) writeRecords(recorder, records, recordBytes);
+        return stats;
+    }
+
+    private static void writeRecords(GameRecordWriter recorder, byte[] records, int length) {
+        try {
+            synchronized (recorder) {
+                recorder.write(records, 0, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plays one game and adds its outcome to the stats.
+     *
+     * @param engine1IsX true if engine 1 plays X (and therefore starts)
+     * @param rng        source of all random choices in this game
+     */
+    void playGame(GameState game, Board scratch, boolean engine1IsX, RandomGenerator rng, Stats stats) {
+        game.reset(!engine1IsX);
+
+        while (true) {
+            TicTacToeAI.Difficulty engine = game.isXTurn() == engine1IsX ? engine1 : engine2;
+
+            game.copyBoardTo(scratch);
+            long moveStart = System.nanoTime();
+            int cell = TicTacToeAI.chooseMove(scratch, engine, rng);
+            stats.moveLatency.record(System.nanoTime() - moveStart);
+
+            GameState.MoveResult result = game.play(rules.row(cell), rules.col(cell));
+            switch (result.type) {
+                case CONTINUE -> { continue; }
+                case WIN -> {
+                    if ("X".equals(result.winner) == engine1IsX) stats.engine1Wins++;
+                    else stats.engine2Wins++;
+                }
+                case DRAW -> stats.draws++;
+                default -> throw new IllegalStateException("Engine " + engine + " played an invalid move: " + cell);
+            }
+            stats.games++;
+            return;
+        }
+    }
+
+    /**
+     * Fork-join task: splits its game range in halves down to BATCH_SIZE,
+     * then merges the stats of both halves.
+     */
+    private final class Batch extends RecursiveTask<Stats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= BATCH_SIZE) {
+                return playRange(from, to);
+            }
+
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(from, mid);
+            left.fork();
+            Stats stats = new Batch(mid, to).compute();
+            stats.add(left.join());
+            return stats;
+        }
+    }
+
+    /**
+     * Aggregated results of a batch of games, seen from engine 1.
+     */
+    public static final class Stats {
+
+        long games;
+        long engine1Wins;
+        long engine2Wins;
+        long draws;
+        long elapsedNanos;
+        final LatencyHistogram moveLatency = new LatencyHistogram();
+
+        public long games() {
+            return games;
+        }
+
+        public long engine1Wins() {
+            return engine1Wins;
+        }
+
+        public long engine2Wins() {
+            return engine2Wins;
+        }
+
+        public long draws() {
+            return draws;
+        }
+
+        public LatencyHistogram moveLatency() {
+            return moveLatency;
+        }
+
+        /** Adds the games of another batch (elapsed time is not added). */
+        void add(Stats other) {
+            games += other.games;
+            engine1Wins += other.engine1Wins;
+            engine2Wins += other.engine2Wins;
+            draws += other.draws;
+            moveLatency.add(other.moveLatency);
+        }
+
+        /** @return games per second of wall-clock time */
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+        }
+    }
+
+    /* -------------------- Command line -------------------- */
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: SelfPlay [options]",
+            "  --games N        number of games to play (default 1000000)",
+            "  --engine1 NAME   first engine: easy, hard, mcts or parallel_mcts (default hard)",
+            "  --engine2 NAME   second engine: easy, hard, mcts or parallel_mcts (default easy)",
+            "  --width N        board width (default 3)",
+            "  --height N       board height (default 3)",
+            "  --win N          stones in a row needed to win (default 3)",
+            "  --seed N         make games reproducible from this seed (easy, and hard on 3x3)",
+            "  --record FILE    archive the games as binary game records",
+            "  --journal DIR    append the games to a memory-mapped game journal",
+            "  --threads N      worker threads (default: all cores; 1 = no fork-join)",
+            "  --scaling        also run with 1, 2, 4, ... threads and print the scaling curve");
+
+    public static void main(String[] args) {
+        long games = 1_000_000;
+        TicTacToeAI.Difficulty engine1 = TicTacToeAI.Difficulty.HARD;
+        TicTacToeAI.Difficulty engine2 = TicTacToeAI.Difficulty.EASY;
+        int width = GameState.SIZE;
+        int height = GameState.SIZE;
+        int winLength = GameState.SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean scaling = false;
+        Long seed = null;
+        String recordFile = null;
+        String journalDir = null;
+        Rules rules;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("--scaling")) {
+                    scaling = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+                String value = args[++i];
+                switch (option) {
+                    case "--games" -> games = Long.parseLong(value);
+                    case "--engine1" -> engine1 = parseEngine(value);
+                    case "--engine2" -> engine2 = parseEngine(value);
+                    case "--width" -> width = Integer.parseInt(value);
+                    case "--height" -> height = Integer.parseInt(value);
+                    case "--win" -> winLength = Integer.parseInt(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--record" -> recordFile = value;
+                    case "--journal" -> journalDir = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+            rules = new Rules(width, height, winLength);
+            if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        SelfPlay selfPlay = seed == null
+                ? new SelfPlay(rules, engine1, engine2)
+                : new SelfPlay(rules, engine1, engine2, seed);
+        System.out.printf(Locale.ROOT, "Self-play: %,d games, %s vs %s on %s, %d thread(s)%s%n",
+                games, engine1, engine2, rules, threads, seed == null ? "" : ", seed " + seed);
+
+        GameRecordWriter recorder = null;
+        GameJournal journal = null;
+        try {
+            if (recordFile != null) {
+                recorder = new GameRecordWriter(new FileOutputStream(recordFile));
+                selfPlay.setRecorder(recorder);
+            }
+            if (journalDir != null) {
+                journal = new GameJournal(Path.of(journalDir));
+                selfPlay.setJournal(journal);
+            }
+            print(threads == 1 ? selfPlay.play(games) : selfPlay.play(games, threads), engine1, engine2);
+            if (recorder != null) {
+                recorder.close();
+                selfPlay.setRecorder(null);
+                System.out.println("  Records written to " + recordFile);
+            }
+            if (journal != null) {
+                journal.close();
+                selfPlay.setJournal(null);
+                System.out.println("  Games journaled to " + journalDir);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Cannot write games: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (scaling) {
+            printScaling(selfPlay, games, threads);
+        }
+    }
+
+    /**
+     * Runs the same workload with 1, 2, 4, ... up to maxThreads threads
+     * and prints throughput and speedup relative to one thread.
+     */
+    static void printScaling(SelfPlay selfPlay, long games, int maxThreads) {
+        System.out.println("Scaling:");
+        System.out.println("  threads      games/s  speedup  efficiency");
+
+        double base = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            double rate = selfPlay.play(games, threads).gamesPerSecond();
+            if (threads == 1) base = rate;
+            double speedup = rate / base;
+            System.out.printf(Locale.ROOT, "  %7d %,12.0f %7.2fx %10.0f%%%n",
+                    threads, rate, speedup, 100 * speedup / threads);
+            if (threads == maxThreads) break;
+        }
+    }
+
+    static TicTacToeAI.Difficulty parseEngine(String name) {
+        try {
+            return TicTacToeAI.Difficulty.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+
+    static void print(Stats stats, TicTacToeAI.Difficulty engine1, TicTacToeAI.Difficulty engine2) {
+        double games = Math.max(1, stats.games);
+        LatencyHistogram latency = stats.moveLatency;
+
+        System.out.printf(Locale.ROOT, "  %-10s wins: %,12d (%6.2f%%)%n", engine1 + " (1)", stats.engine1Wins, 100 * stats.engine1Wins / games);
+        System.out.printf(Locale.ROOT, "  %-10s wins: %,12d (%6.2f%%)%n", engine2 + " (2)", stats.engine2Wins, 100 * stats.engine2Wins / games);
+        System.out.printf(Locale.ROOT, "  %-10s     : %,12d (%6.2f%%)%n", "Draws", stats.draws, 100 * stats.draws / games);
+        System.out.printf(Locale.ROOT, "  Throughput: %,.0f games/s (%.2f s)%n", stats.gamesPerSecond(), stats.elapsedNanos / 1e9);
+        System.out.printf(Locale.ROOT, "  Move latency (ns): p50 %,d  p90 %,d  p99 %,d  p99.9 %,d  max %,d%n",
+                latency.percentile(50), latency.percentile(90), latency.percentile(99),
+                latency.percentile(99.9), latency.max());
+    }
+}
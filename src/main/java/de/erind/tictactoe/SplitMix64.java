@@ -0,0 +1,47 @@
+package de.erind.tictactoe;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Small, fast, reseedable random generator (SplitMix64).
+ *
+ * Meant for reproducible simulations: one instance per worker thread, reseeded
+ * per game from (seed, game index), so every game can be replayed on its own,
+ * independent of thread count and scheduling. Reseeding does not allocate.
+ *
+ * Not thread-safe. Not suitable for cryptography.
+ */
+public final class SplitMix64 implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    /** Restarts the sequence from the given seed. */
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Derives a well-mixed seed for one item of a seeded run
+     * (e.g. one game), so neighbouring indexes give unrelated sequences.
+     */
+    public static long seedFor(long seed, long index) {
+        return mix(seed + index * GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,95 @@
+package de.erind.tictactoe;
+
+/**
+ * The 8 symmetries of the classic 3x3 board (4 rotations, each optionally mirrored).
+ *
+ * Symmetric positions have the same value and equivalent best moves, so caches
+ * only need to store one representative per class. The canonical representative
+ * is the image with the smallest Zobrist hash, compared unsigned. Both
+ * {@link AlphaBetaSearch} (keys from {@link #transformKeys}) and the batch
+ * API of {@link TicTacToeAI} (keys of the {@link Rules}) pick it that way.
+ *
+ * Transforms are numbered 0..7, where 0 is the identity. A move found on the
+ * canonical board is mapped back with {@link #unmapCell}.
+ */
+public final class Symmetry {
+
+    /** Number of board symmetries */
+    public static final int COUNT = 8;
+
+    /** CELL_MAP[t][cell] = cell that the given cell moves to under transform t */
+    private static final int[][] CELL_MAP = new int[COUNT][Bitboards.CELLS];
+
+    /** INVERSE_MAP[t][cell] = cell that moves to the given cell under transform t */
+    private static final int[][] INVERSE_MAP = new int[COUNT][Bitboards.CELLS];
+
+    /** MASK_MAP[t][mask] = image of a whole bitboard under transform t */
+    private static final short[][] MASK_MAP = new short[COUNT][1 << Bitboards.CELLS];
+
+    static {
+        int n = GameState.SIZE;
+        for (int t = 0; t < COUNT; t++) {
+            for (int r = 0; r < n; r++) {
+                for (int c = 0; c < n; c++) {
+                    // Mirror first (t >= 4), then rotate clockwise (t % 4) times
+                    int row = r;
+                    int col = t >= 4 ? n - 1 - c : c;
+                    for (int i = 0; i < t % 4; i++) {
+                        int rotated = row;
+                        row = col;
+                        col = n - 1 - rotated;
+                    }
+                    int from = r * n + c;
+                    int to = row * n + col;
+                    CELL_MAP[t][from] = to;
+                    INVERSE_MAP[t][to] = from;
+                }
+            }
+
+            for (int mask = 1; mask < MASK_MAP[t].length; mask++) {
+                int cell = Integer.numberOfTrailingZeros(mask);
+                MASK_MAP[t][mask] = (short) (MASK_MAP[t][mask & (mask - 1)] | (1 << CELL_MAP[t][cell]));
+            }
+        }
+    }
+
+    /** Utility class: prevent instantiation */
+    private Symmetry() {}
+
+    /**
+     * Returns the image of a bitboard under transform t.
+     */
+    public static int transform(int t, int mask) {
+        return MASK_MAP[t][mask];
+    }
+
+    /**
+     * Returns the cell the given cell moves to under transform t.
+     */
+    public static int mapCell(int t, int cell) {
+        return CELL_MAP[t][cell];
+    }
+
+    /**
+     * Returns the cell that moves to the given cell under transform t
+     * (maps a move on the transformed board back to the original board).
+     */
+    public static int unmapCell(int t, int cell) {
+        return INVERSE_MAP[t][cell];
+    }
+
+    /**
+     * Returns a copy of per-cell keys (e.g. Zobrist keys) for every transform:
+     * result[t][cell] = keys[mapCell(t, cell)].
+     * XOR-ing these per transform hashes all 8 images of a position at once.
+     */
+    public static long[][] transformKeys(long[] keys) {
+        long[][] result = new long[COUNT][Bitboards.CELLS];
+        for (int t = 0; t < COUNT; t++) {
+            for (int cell = 0; cell < Bitboards.CELLS; cell++) {
+                result[t][cell] = keys[CELL_MAP[t][cell]];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Perfect-play tablebase for the classic 3x3 board.
+ *
+ * Every position reachable from the empty board (5,478 of them) is solved once
+ * and stored in two byte arrays indexed by the base-3 encoding of the board
+ * (cell value 0 = empty, 1 = X, 2 = O). Looking up the best move afterwards
+ * takes two array reads, so HARD moves cost no search at all.
+ *
+ * Each position is solved only once per symmetry class (see {@link Symmetry});
+ * the result is then written to all symmetric images, so lookups never have
+ * to canonicalize.
+ *
+ * Values use the same negamax scoring as {@link AlphaBetaSearch}
+ * (from the point of view of the player to move). Ties between equally good
+ * moves are broken by the static {@link AlphaBetaSearch#MOVE_ORDER} alone
+ * (center, corners, edges), applied to each image separately on the optimal
+ * moves mapped into it. AlphaBetaSearch orders wins, the table move and blocks
+ * first, so the two may pick different moves of equal value.
+ */
+public final class Tablebase {
+
+    /** Number of base-3 board encodings (3^9) */
+    public static final int INDEX_COUNT = 19_683;
+
+    /** Value marker for positions that are not reachable */
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /** BASE3[mask] = sum of 3^cell over all cells in the mask */
+    private static final int[] BASE3 = new int[1 << Bitboards.CELLS];
+
+    static {
+        for (int mask = 1; mask < BASE3.length; mask++) {
+            int cell = Integer.numberOfTrailingZeros(mask);
+            BASE3[mask] = BASE3[mask & (mask - 1)] + pow3(cell);
+        }
+    }
+
+    /** Best move (cell index) per position, -1 if the game is over */
+    private final byte[] bestMoves = new byte[INDEX_COUNT];
+
+    /** Negamax value per position for the player to move */
+    private final byte[] values = new byte[INDEX_COUNT];
+
+    /** Number of reachable positions stored */
+    private int positionCount;
+
+    /** Number of symmetry classes solved (one search per class) */
+    private int canonicalCount;
+
+    /** Lazily built shared instance */
+    private static final class Holder {
+        static final Tablebase INSTANCE = build();
+    }
+
+    private Tablebase() {
+        Arrays.fill(values, UNKNOWN);
+        Arrays.fill(bestMoves, (byte) -1);
+    }
+
+    /**
+     * Returns the shared tablebase, building it on first use.
+     */
+    public static Tablebase classic() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Solves every position reachable from the empty board.
+     */
+    public static Tablebase build() {
+        Tablebase tablebase = new Tablebase();
+        tablebase.solve(0, 0);
+        return tablebase;
+    }
+
+    /**
+     * Returns the base-3 index of a position.
+     */
+    public static int index(int xBits, int oBits) {
+        return BASE3[xBits] + 2 * BASE3[oBits];
+    }
+
+    /**
+     * Returns the best cell for the player to move, or -1 if the game is over
+     * or the position cannot be reached in a legal game.
+     *
+     * @param own stones of the player to move
+     * @param opp stones of the opponent
+     */
+    public int bestMove(int own, int opp) {
+        int index = indexToMove(own, opp);
+        return index < 0 ? -1 : bestMoves[index];
+    }
+
+    /**
+     * Returns the negamax value for the player to move.
+     *
+     * @throws IllegalArgumentException if the position cannot be reached in a legal game
+     */
+    public int value(int own, int opp) {
+        int index = indexToMove(own, opp);
+        if (index < 0 || values[index] == UNKNOWN) {
+            throw new IllegalArgumentException("Unreachable position");
+        }
+        return values[index];
+    }
+
+    /**
+     * @return true if the position can be reached in a legal game
+     */
+    public boolean contains(int own, int opp) {
+        int index = indexToMove(own, opp);
+        return index >= 0 && values[index] != UNKNOWN;
+    }
+
+    /** @return number of reachable positions stored */
+    public int positionCount() {
+        return positionCount;
+    }
+
+    /** @return number of reachable positions up to symmetry */
+    public int canonicalCount() {
+        return canonicalCount;
+    }
+
+    /**
+     * Maps a position seen from the player to move to its base-3 index,
+     * or -1 if the stone counts do not fit a legal game.
+     * X always starts, so X is to move whenever both sides have the same count.
+     */
+    private static int indexToMove(int own, int opp) {
+        if ((own & opp) != 0 || ((own | opp) & ~Bitboards.FULL) != 0) return -1;
+
+        int ownCount = Integer.bitCount(own);
+        int oppCount = Integer.bitCount(opp);
+        if (ownCount == oppCount) return index(own, opp);
+        if (ownCount + 1 == oppCount) return index(opp, own);
+        return -1;
+    }
+
+    /**
+     * Memoized negamax over all reachable positions.
+     * Solving a position also fills in all of its symmetric images.
+     */
+    private int solve(int own, int opp) {
+        int index = indexToMove(own, opp);
+        if (values[index] != UNKNOWN) return values[index];
+
+        int empty = ~(own | opp) & Bitboards.FULL;
+        int best;
+        int optimal = 0;  // all moves with the best value
+
+        if (Bitboards.isWin(opp)) {
+            // Opponent completed a line with their last move
+            best = -(1 + Integer.bitCount(empty));
+        } else if (empty == 0) {
+            best = 0;
+        } else {
+            best = -AlphaBetaSearch.INFINITY;
+            for (int cell : AlphaBetaSearch.MOVE_ORDER) {
+                int bit = 1 << cell;
+                if ((empty & bit) == 0) continue;
+
+                int score = -solve(opp, own | bit);
+                if (score > best) {
+                    best = score;
+                    optimal = bit;
+                } else if (score == best) {
+                    optimal |= bit;
+                }
+            }
+        }
+
+        canonicalCount++;
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            int image = indexToMove(Symmetry.transform(t, own), Symmetry.transform(t, opp));
+            if (values[image] != UNKNOWN) continue;  // symmetric position already stored
+
+            positionCount++;
+            values[image] = (byte) best;
+            bestMoves[image] = (byte) firstInMoveOrder(Symmetry.transform(t, optimal));
+        }
+        return best;
+    }
+
+    /** @return the first cell of the mask in move order, or -1 if it is empty */
+    private static int firstInMoveOrder(int mask) {
+        for (int cell : AlphaBetaSearch.MOVE_ORDER) {
+            if ((mask & 1 << cell) != 0) return cell;
+        }
+        return -1;
+    }
+
+    private static int pow3(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+}
@@ -1,44 +1,194 @@
 package de.erind.tictactoe;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Simple AI engine for Tic-Tac-Toe.
  *
- * Supports two difficulty levels:
+ * Supports four difficulty levels:
  * - EASY: chooses a random available move
- * - HARD: uses minimax for perfect play
+ * - HARD: perfect play, by default via tablebase lookup (see {@link Search})
+ * - MCTS: Monte Carlo Tree Search for {@link #MCTS_MOVE_TIME_MS} per move
+ *   (see {@link MctsSearch}), for boards too large for alpha-beta
+ * - PARALLEL_MCTS: MCTS on all cores for the same time (see {@link ParallelMctsSearch})
+ *
+ * The tablebase and bitboard alpha-beta only exist for the classic 3x3 board.
+ * Other variants (see {@link Rules}) are searched with {@link BoardSearch},
+ * using iterative deepening with a budget of {@link #HARD_MOVE_TIME_MS} per move
+ * (exact whenever the search reaches the end of the game in time).
+ *
+ * Engines that play many moves should use {@link #chooseMove(Board, Difficulty)}:
+ * it works directly on a search board and allocates nothing per move.
+ *
+ * Servers answering many games at once should use the batch methods
+ * {@link #chooseMoves(int[], int[])} and {@link #chooseMoves(Board[], Difficulty, int[])}.
+ *
+ * Randomness (EASY) comes from {@link ThreadLocalRandom} by default, so
+ * concurrent callers never contend on a shared seed. Pass an explicit
+ * {@link RandomGenerator} (e.g. a seeded {@link SplitMix64}) for reproducible games.
  */
 public final class TicTacToeAI {
 
     /** AI difficulty levels */
-    public enum Difficulty { EASY, HARD }
+    public enum Difficulty { EASY, HARD, MCTS, PARALLEL_MCTS }
+
+    /** Search algorithms used for HARD difficulty */
+    public enum Search {
+        MINIMAX,     // Plain minimax over the full game tree (reference implementation)
+        ALPHA_BETA,  // Alpha-beta with move ordering and a transposition table
+        TABLEBASE,   // Lookup in the precomputed perfect-play tablebase (default)
+        PARALLEL_ALPHA_BETA  // Alpha-beta with the root moves split over all cores
+    }
+
+    /**
+     * Transposition table for HARD searches, shared across games.
+     * 2^14 slots comfortably hold all 5,478 reachable positions.
+     */
+    private static final TranspositionTable TABLE = new TranspositionTable(1 << 14);
+
+    /** Time budget per HARD move on non-classic boards */
+    public static final long HARD_MOVE_TIME_MS = 50;
+    private static final long HARD_MOVE_TIME_NANOS = HARD_MOVE_TIME_MS * 1_000_000;
 
-    /** RNG used for EASY difficulty */
-    private static final Random RNG = new Random();
+    /** Time budget per MCTS move */
+    public static final long MCTS_MOVE_TIME_MS = 50;
+    private static final long MCTS_MOVE_TIME_NANOS = MCTS_MOVE_TIME_MS * 1_000_000;
+
+    /** Search state for non-classic boards, one per thread */
+    private static final ThreadLocal<BoardSearch> BOARD_SEARCH = ThreadLocal.withInitial(BoardSearch::new);
+
+    /** MCTS node arena, one per thread */
+    private static final ThreadLocal<MctsSearch> MCTS_SEARCH = ThreadLocal.withInitial(MctsSearch::new);
+
+    /** Search board per thread for {@link #chooseMove(Position, Difficulty)}, replaced when the rules change */
+    private static final ThreadLocal<Board> POSITION_BOARD = new ThreadLocal<>();
+
+    /** Lazily created alpha-beta workers, one per core (holder idiom) */
+    private static final class ParallelSearchHolder {
+        static final ParallelBoardSearch SEARCH =
+                new ParallelBoardSearch(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Lazily created MCTS workers, one per core (holder idiom) */
+    private static final class ParallelMctsHolder {
+        static final ParallelMctsSearch SEARCH =
+                new ParallelMctsSearch(Runtime.getRuntime().availableProcessors());
+    }
 
     /** Utility class: prevent instantiation */
     private TicTacToeAI() {}
 
     /**
-     * Chooses a move for the AI.
+     * Chooses a move for the AI using the default search for HARD.
+     * The board is treated as N-in-a-row, where N is its smaller dimension.
      */
     public static int[] chooseMove(String[][] board,
                                    String aiSymbol,
                                    String humanSymbol,
                                    Difficulty difficulty) {
+        return chooseMove(board, aiSymbol, humanSymbol, difficulty, Search.TABLEBASE);
+    }
+
+    /**
+     * Chooses a move for the AI using the given search for HARD.
+     * MINIMAX is kept to verify the faster searches against.
+     */
+    public static int[] chooseMove(String[][] board,
+                                   String aiSymbol,
+                                   String humanSymbol,
+                                   Difficulty difficulty,
+                                   Search search) {
+        int height = board.length;
+        int width = board[0].length;
+        Rules rules = new Rules(width, height, Math.min(width, height));
+        return chooseMove(board, rules, aiSymbol, humanSymbol, difficulty, search);
+    }
+
+    /**
+     * Chooses a move for the AI on a board of the given variant,
+     * using the default search for HARD.
+     */
+    public static int[] chooseMove(String[][] board,
+                                   Rules rules,
+                                   String aiSymbol,
+                                   String humanSymbol,
+                                   Difficulty difficulty) {
+        return chooseMove(board, rules, aiSymbol, humanSymbol, difficulty, Search.TABLEBASE);
+    }
+
+    /**
+     * Chooses a move for the AI on a board of the given variant,
+     * using the given search for HARD.
+     *
+     * @throws IllegalArgumentException if the board is not classic, the search
+     *         is not MINIMAX and the position cannot occur in a legal game
+     *         (stone counts that do not alternate, or a line already complete)
+     */
+    public static int[] chooseMove(String[][] board,
+                                   Rules rules,
+                                   String aiSymbol,
+                                   String humanSymbol,
+                                   Difficulty difficulty,
+                                   Search search) {
 
         List<int[]> moves = availableMoves(board);
         if (moves.isEmpty()) return null;
 
         // EASY: pick a random free cell
         if (difficulty == Difficulty.EASY) {
-            return moves.get(RNG.nextInt(moves.size()));
+            return moves.get(ThreadLocalRandom.current().nextInt(moves.size()));
         }
 
-        // HARD: minimax (optimal play)
+        // MCTS on a search board; positions that cannot occur in a legal game
+        // fall through to the HARD searches below (and are rejected on other variants)
+        if (difficulty == Difficulty.MCTS || difficulty == Difficulty.PARALLEL_MCTS) {
+            Board searchBoard = toBoard(board, rules, aiSymbol, humanSymbol);
+            if (searchBoard != null) {
+                int cell = mctsMove(searchBoard, difficulty, ThreadLocalRandom.current());
+                return cell < 0 ? null : new int[] { rules.row(cell), rules.col(cell) };
+            }
+        }
+
+        // HARD on other variants: timed alpha-beta on a search board. Positions
+        // it cannot take are rejected: unbounded minimax would not finish on them
+        if (search != Search.MINIMAX && !rules.isClassic()) {
+            Board searchBoard = toBoard(board, rules, aiSymbol, humanSymbol);
+            if (searchBoard == null) {
+                throw new IllegalArgumentException("Position cannot occur in a legal game on " + rules);
+            }
+            int cell = search == Search.PARALLEL_ALPHA_BETA
+                    ? ParallelSearchHolder.SEARCH.bestMove(searchBoard, HARD_MOVE_TIME_NANOS)
+                    : BOARD_SEARCH.get().bestMove(searchBoard, HARD_MOVE_TIME_NANOS);
+            return cell < 0 ? null : new int[] { rules.row(cell), rules.col(cell) };
+        }
+
+        // HARD with all cores on the classic board: full-depth parallel alpha-beta
+        if (search == Search.PARALLEL_ALPHA_BETA && rules.isClassic()) {
+            Board searchBoard = toBoard(board, rules, aiSymbol, humanSymbol);
+            if (searchBoard != null) {
+                int cell = ParallelSearchHolder.SEARCH.bestMove(searchBoard);
+                return cell < 0 ? null : new int[] { rules.row(cell), rules.col(cell) };
+            }
+        }
+
+        // HARD: tablebase lookup, falling back to alpha-beta over bitboards
+        // for positions that cannot occur in a legal game
+        if (search != Search.MINIMAX && rules.isClassic()) {
+            int own = mask(board, aiSymbol);
+            int opp = mask(board, humanSymbol);
+            int cell = search == Search.TABLEBASE ? Tablebase.classic().bestMove(own, opp) : -1;
+            if (cell < 0) {
+                cell = AlphaBetaSearch.bestMove(own, opp, TABLE);
+            }
+            return cell < 0 ? null : new int[] { cell / GameState.SIZE, cell % GameState.SIZE };
+        }
+
+        // HARD: plain minimax (optimal play)
         int bestScore = Integer.MIN_VALUE;
         int[] bestMove = null;
 
@@ -47,7 +197,7 @@ public final class TicTacToeAI {
             board[move[0]][move[1]] = aiSymbol;
 
             // Evaluate outcome assuming the human plays next
-            int score = minimax(board, 0, false, aiSymbol, humanSymbol);
+            int score = minimax(board, rules, move[0], move[1], 0, false, aiSymbol, humanSymbol);
 
             // Undo the move (restore board)
             board[move[0]][move[1]] = "";
@@ -61,20 +211,297 @@ public final class TicTacToeAI {
         return bestMove;
     }
 
+    /**
+     * Chooses a move for the player to move on a search board.
+     * The board is searched in place with make/unmake and left unchanged;
+     * no memory is allocated.
+     *
+     * @return the chosen cell, or -1 if the game is over
+     */
+    public static int chooseMove(Board board, Difficulty difficulty) {
+        return chooseMove(board, difficulty, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link #chooseMove(Board, Difficulty)}, drawing all random
+     * choices from the given generator.
+     */
+    public static int chooseMove(Board board, Difficulty difficulty, RandomGenerator rng) {
+        if (board.isGameOver()) return -1;
+
+        // EASY: pick a random free cell
+        if (difficulty == Difficulty.EASY) {
+            return nthEmptyCell(board, rng.nextInt(board.getEmptyCount()));
+        }
+
+        // MCTS: random playouts drawn from the same generator
+        if (difficulty == Difficulty.MCTS || difficulty == Difficulty.PARALLEL_MCTS) {
+            return mctsMove(board, difficulty, rng);
+        }
+
+        // HARD on other variants: timed alpha-beta on the board itself
+        if (!board.getRules().isClassic()) {
+            return BOARD_SEARCH.get().bestMove(board, HARD_MOVE_TIME_NANOS);
+        }
+
+        // HARD: tablebase lookup on the bitboards
+        int x = (int) board.getBits(Board.X, 0);
+        int o = (int) board.getBits(Board.O, 0);
+        int own = board.isXToMove() ? x : o;
+        int opp = board.isXToMove() ? o : x;
+        return Tablebase.classic().bestMove(own, opp);
+    }
+
+    /**
+     * Chooses a move for the player to move in an immutable position,
+     * e.g. a snapshot taken on the UI thread and searched on a worker.
+     *
+     * @return the chosen cell, or -1 if the game is over
+     */
+    public static int chooseMove(Position position, Difficulty difficulty) {
+        if (position.isGameOver()) return -1;
+
+        Board board = POSITION_BOARD.get();
+        if (board == null || !board.getRules().equals(position.getRules())) {
+            board = new Board(position.getRules());
+            POSITION_BOARD.set(board);
+        }
+        position.copyTo(board);
+        return chooseMove(board, difficulty);
+    }
+
+    /* -------------------- Batch API -------------------- */
+
+    /**
+     * Packs a classic 3x3 position for {@link #chooseMoves(int[], int[])}:
+     * X stones in bits 0-8, O stones in bits 9-17 (bit = row * 3 + col).
+     */
+    public static int packPosition(int xBits, int oBits) {
+        return xBits | oBits << Bitboards.CELLS;
+    }
+
+    /**
+     * Chooses perfect (HARD) moves for many classic 3x3 positions at once.
+     * The player to move follows from the stone counts (X moves first).
+     *
+     * Every reachable position is a direct tablebase lookup, so no
+     * deduplication is needed; positions that cannot occur in a legal game
+     * fall back to alpha-beta search.
+     *
+     * @param positions positions packed with {@link #packPosition}
+     * @param moves     receives the chosen cell per position, or -1 if the game is over
+     * @throws IllegalArgumentException if moves is too short or a cell holds both stones
+     */
+    public static void chooseMoves(int[] positions, int[] moves) {
+        if (moves.length < positions.length) {
+            throw new IllegalArgumentException("Need " + positions.length + " move slots, got " + moves.length);
+        }
+
+        Tablebase tablebase = Tablebase.classic();
+        for (int i = 0; i < positions.length; i++) {
+            int x = positions[i] & Bitboards.FULL;
+            int o = positions[i] >>> Bitboards.CELLS & Bitboards.FULL;
+            if ((x & o) != 0 || positions[i] >>> (2 * Bitboards.CELLS) != 0) {
+                throw new IllegalArgumentException("Invalid packed position at " + i + ": " + positions[i]);
+            }
+
+            boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+            int own = xToMove ? x : o;
+            int opp = xToMove ? o : x;
+            int cell = tablebase.bestMove(own, opp);
+            moves[i] = cell >= 0 ? cell : AlphaBetaSearch.bestMove(own, opp, TABLE);
+        }
+    }
+
+    /**
+     * Chooses moves for many positions of the same variant at once.
+     *
+     * Identical and symmetric positions (rotations and reflections) are
+     * searched only once and the move is mapped
+     * back to each board; the distinct positions are searched in parallel.
+     * EASY moves are drawn independently per board. Boards are left unchanged;
+     * a board must not be modified by another thread during the call.
+     *
+     * @param moves receives the chosen cell per board, or -1 if the game is over
+     * @throws IllegalArgumentException if moves is too short or the boards use different rules
+     */
+    public static void chooseMoves(Board[] boards, Difficulty difficulty, int[] moves) {
+        if (moves.length < boards.length) {
+            throw new IllegalArgumentException("Need " + boards.length + " move slots, got " + moves.length);
+        }
+        if (boards.length == 0) return;
+
+        Rules rules = boards[0].getRules();
+        for (Board board : boards) {
+            if (!board.getRules().equals(rules)) {
+                throw new IllegalArgumentException("Cannot mix " + rules + " and " + board.getRules() + " boards");
+            }
+        }
+
+        if (difficulty == Difficulty.EASY) {
+            for (int i = 0; i < boards.length; i++) {
+                moves[i] = chooseMove(boards[i], difficulty);
+            }
+            return;
+        }
+
+        // Group boards by their canonical image: an open-addressed table keyed by
+        // its hash, where a hash match only counts if the stones match too
+        Rules.Symmetries symmetries = rules.symmetries();
+        long[] keys = rules.zobristKeys();
+        int[] transforms = new int[boards.length];
+        int[] representatives = new int[boards.length];
+        int[] unique = new int[boards.length];
+        int uniqueCount = 0;
+        int mask = Integer.highestOneBit(Math.max(1, boards.length) * 2 - 1) * 2 - 1;
+        long[] slotHashes = new long[mask + 1];
+        int[] slotBoards = new int[mask + 1];
+        Arrays.fill(slotBoards, -1);
+
+        for (int i = 0; i < boards.length; i++) {
+            long bestHash = Long.MAX_VALUE;
+            for (int t = 0; t < symmetries.count; t++) {
+                long hash = transformedHash(boards[i], symmetries.cellMap[t], keys);
+                if (t == 0 || Long.compareUnsigned(hash, bestHash) < 0) {
+                    bestHash = hash;
+                    transforms[i] = t;
+                }
+            }
+
+            int slot = (int) (bestHash ^ bestHash >>> 32) & mask;
+            while (slotBoards[slot] >= 0
+                    && (slotHashes[slot] != bestHash
+                        || !sameImage(boards[i], transforms[i], boards[slotBoards[slot]], transforms[slotBoards[slot]], symmetries))) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (slotBoards[slot] < 0) {
+                slotHashes[slot] = bestHash;
+                slotBoards[slot] = i;
+                representatives[i] = i;
+                unique[uniqueCount++] = i;
+            } else {
+                representatives[i] = slotBoards[slot];
+            }
+        }
+
+        // Distinct positions in parallel; each board is searched by one thread only
+        IntStream.range(0, uniqueCount).parallel().forEach(u -> {
+            int i = unique[u];
+            moves[i] = chooseMove(boards[i], difficulty);
+        });
+
+        // Move on the representative -> canonical board -> this board
+        for (int i = 0; i < boards.length; i++) {
+            int r = representatives[i];
+            if (r == i) continue;
+            int cell = moves[r];
+            moves[i] = cell < 0 ? -1
+                    : symmetries.inverseMap[transforms[i]][symmetries.cellMap[transforms[r]][cell]];
+        }
+    }
+
+    /**
+     * @return true if board a under transform ta holds the same stones as board b under tb
+     */
+    private static boolean sameImage(Board a, int ta, Board b, int tb, Rules.Symmetries symmetries) {
+        if (a.getMoveCount() != b.getMoveCount()) return false;
+        int[] aMap = symmetries.cellMap[ta];
+        int[] bInverse = symmetries.inverseMap[tb];
+        for (int cell = 0; cell < aMap.length; cell++) {
+            if (a.get(cell) != b.get(bInverse[aMap[cell]])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Zobrist hash of the board's image under a cell map
+     * (equal to {@link Board#getHash()} for the identity).
+     */
+    private static long transformedHash(Board board, int[] cellMap, long[] keys) {
+        int cellCount = cellMap.length;
+        long hash = 0;
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int cell = cellMap[board.getMove(i)];
+            hash ^= keys[i % 2 == 0 ? cell : cellCount + cell];
+        }
+        return hash;
+    }
+
+    /**
+     * Runs MCTS for the move time, on this thread or on all cores.
+     */
+    private static int mctsMove(Board board, Difficulty difficulty, RandomGenerator rng) {
+        if (difficulty == Difficulty.PARALLEL_MCTS) {
+            return ParallelMctsHolder.SEARCH.bestMove(board, MCTS_MOVE_TIME_NANOS, rng);
+        }
+        return MCTS_SEARCH.get().bestMove(board, MCTS_MOVE_TIME_NANOS, rng);
+    }
+
+    /**
+     * Returns the n-th empty cell (0-based) in board order.
+     */
+    private static int nthEmptyCell(Board board, int n) {
+        int cellCount = board.getRules().getCellCount();
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (board.isEmpty(cell) && n-- == 0) return cell;
+        }
+        return -1;
+    }
+
+    /**
+     * Converts a String board into a search board with the AI to move,
+     * or returns null if the stone counts do not fit a legal game.
+     * Stones are replayed alternately, which reaches the same position
+     * as long as nobody has won yet.
+     */
+    private static Board toBoard(String[][] cells, Rules rules, String aiSymbol, String humanSymbol) {
+        int[] ai = new int[rules.getCellCount()];
+        int[] human = new int[rules.getCellCount()];
+        int aiCount = 0;
+        int humanCount = 0;
+
+        for (int r = 0; r < rules.getHeight(); r++) {
+            for (int c = 0; c < rules.getWidth(); c++) {
+                if (aiSymbol.equals(cells[r][c])) ai[aiCount++] = rules.cell(r, c);
+                else if (humanSymbol.equals(cells[r][c])) human[humanCount++] = rules.cell(r, c);
+            }
+        }
+
+        // The AI is to move, so it moved first iff both sides have the same count
+        boolean aiFirst = aiCount == humanCount;
+        if (!aiFirst && aiCount + 1 != humanCount) return null;
+
+        int[] first = aiFirst ? ai : human;
+        int[] second = aiFirst ? human : ai;
+
+        Board board = new Board(rules);
+        for (int i = 0; i < aiCount + humanCount; i++) {
+            if (board.isGameOver()) return null;
+            board.makeMove(i % 2 == 0 ? first[i / 2] : second[i / 2]);
+        }
+        return board.getWinner() == Board.EMPTY ? board : null;
+    }
+
     /**
      * Minimax algorithm for Tic-Tac-Toe.
+     * (lastRow, lastCol) is the move that led to this position.
      */
     private static int minimax(String[][] board,
+                               Rules rules,
+                               int lastRow,
+                               int lastCol,
                                int depth,
                                boolean maximizing,
                                String ai,
                                String human) {
 
-        // Terminal state evaluation
-        String winner = winner(board);
-        if (winner != null) {
-            if (winner.equals(ai)) return 10 - depth;     // prefer faster win
-            if (winner.equals(human)) return depth - 10;  // prefer slower loss
+        // Terminal state evaluation: only the last move can have completed a line
+        int maxScore = rules.getCellCount() + 1;
+        if (completesLine(board, rules, lastRow, lastCol)) {
+            String winner = board[lastRow][lastCol];
+            if (winner.equals(ai)) return maxScore - depth;     // prefer faster win
+            if (winner.equals(human)) return depth - maxScore;  // prefer slower loss
         }
 
         // No moves left -> draw
@@ -85,7 +512,7 @@ public final class TicTacToeAI {
             int best = Integer.MIN_VALUE;
             for (int[] m : availableMoves(board)) {
                 board[m[0]][m[1]] = ai;
-                best = Math.max(best, minimax(board, depth + 1, false, ai, human));
+                best = Math.max(best, minimax(board, rules, m[0], m[1], depth + 1, false, ai, human));
                 board[m[0]][m[1]] = "";
             }
             return best;
@@ -94,7 +521,7 @@ public final class TicTacToeAI {
             int best = Integer.MAX_VALUE;
             for (int[] m : availableMoves(board)) {
                 board[m[0]][m[1]] = human;
-                best = Math.min(best, minimax(board, depth + 1, true, ai, human));
+                best = Math.min(best, minimax(board, rules, m[0], m[1], depth + 1, true, ai, human));
                 board[m[0]][m[1]] = "";
             }
             return best;
@@ -117,27 +544,41 @@ public final class TicTacToeAI {
     }
 
     /**
-     * Detects a winner on the board.
+     * Converts the cells holding the given symbol into a bitboard.
      */
-    private static String winner(String[][] b) {
-        // Rows
-        for (int r = 0; r < 3; r++) {
-            if (!b[r][0].isEmpty() && b[r][0].equals(b[r][1]) && b[r][0].equals(b[r][2])) {
-                return b[r][0];
+    private static int mask(String[][] board, String symbol) {
+        int bits = 0;
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < board[r].length; c++) {
+                if (symbol.equals(board[r][c])) {
+                    bits |= Bitboards.bit(r, c);
+                }
             }
         }
+        return bits;
+    }
 
-        // Columns
-        for (int c = 0; c < 3; c++) {
-            if (!b[0][c].isEmpty() && b[0][c].equals(b[1][c]) && b[0][c].equals(b[2][c])) {
-                return b[0][c];
+    /**
+     * Checks whether the stone at (row, col) is part of a line of
+     * at least the rules' win length (row, column or diagonal).
+     */
+    private static boolean completesLine(String[][] board, Rules rules, int row, int col) {
+        String symbol = board[row][col];
+        int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+        for (int[] dir : directions) {
+            int length = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = row + sign * dir[0];
+                int c = col + sign * dir[1];
+                while (rules.contains(r, c) && symbol.equals(board[r][c])) {
+                    length++;
+                    r += sign * dir[0];
+                    c += sign * dir[1];
+                }
             }
+            if (length >= rules.getWinLength()) return true;
         }
-
-        // Diagonals
-        if (!b[0][0].isEmpty() && b[0][0].equals(b[1][1]) && b[0][0].equals(b[2][2])) return b[0][0];
-        if (!b[0][2].isEmpty() && b[0][2].equals(b[1][1]) && b[0][2].equals(b[2][0])) return b[0][2];
-
-        return null;
+        return false;
     }
 }
@@ -0,0 +1,109 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table keyed by Zobrist hash.
+ *
+ * Each slot holds one search result packed into a long:
+ * score (16 bits), depth (16 bits), best move (16 bits) and bound type (2 bits).
+ * Nothing is allocated after construction and the table never grows.
+ *
+ * The table can be shared by several threads without locking: every slot
+ * stores (key ^ data) next to data, so a slot torn by a concurrent write
+ * simply fails the key check and reads as a miss.
+ */
+public final class TranspositionTable {
+
+    /** Bound types stored with a score */
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;   // score is a lower bound (fail high)
+    public static final int UPPER = 2;   // score is an upper bound (fail low)
+
+    /** Marks a slot as used, so a valid entry is never 0 */
+    private static final long VALID = 1L << 63;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int indexMask;
+
+    /**
+     * Creates a table with at least the given number of slots
+     * (rounded up to a power of two).
+     */
+    public TranspositionTable(int minSlots) {
+        if (minSlots <= 0) {
+            throw new IllegalArgumentException("Table size must be positive: " + minSlots);
+        }
+        int slots = Integer.highestOneBit(minSlots);
+        if (slots < minSlots) slots <<= 1;
+
+        keys = new long[slots];
+        data = new long[slots];
+        indexMask = slots - 1;
+    }
+
+    /**
+     * Returns the packed entry for the hash, or 0 if there is none.
+     * Use the static accessors to unpack it.
+     */
+    public long probe(long hash) {
+        int i = index(hash);
+        long entry = data[i];
+        return (keys[i] ^ entry) == hash ? entry : 0;
+    }
+
+    /**
+     * Stores a search result. An existing entry for the same position
+     * is only replaced by one searched at least as deep.
+     *
+     * @param move best move found (cell index), or -1 if none
+     */
+    public void store(long hash, int score, int depth, int bound, int move) {
+        int i = index(hash);
+        long old = data[i];
+        if ((keys[i] ^ old) == hash && depth(old) > depth) return;
+
+        long entry = VALID
+                | (score & 0xFFFFL)
+                | (depth & 0xFFFFL) << 16
+                | ((move + 1) & 0xFFFFL) << 32
+                | (bound & 0x3L) << 48;
+        data[i] = entry;
+        keys[i] = hash ^ entry;
+    }
+
+    /** Removes all entries. */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /** @return number of slots */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int index(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & indexMask;
+    }
+
+    /* -------------------- Entry accessors -------------------- */
+
+    public static int score(long entry) {
+        return (short) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFFFF;
+    }
+
+    /** @return best move (cell index), or -1 if none was stored */
+    public static int move(long entry) {
+        return ((int) (entry >>> 32) & 0xFFFF) - 1;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 48) & 0x3;
+    }
+}
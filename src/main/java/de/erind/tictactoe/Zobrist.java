@@ -0,0 +1,63 @@
+package de.erind.tictactoe;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing of board positions.
+ *
+ * Every (player, cell) pair gets a random 64-bit key and a position hashes to
+ * the XOR of the keys of all occupied cells. Placing or removing a stone is a
+ * single XOR, so searches keep the hash up to date on make/unmake.
+ *
+ * Keys are generated from a fixed seed, so hashes are stable across runs.
+ */
+public final class Zobrist {
+
+    /** Seed for key generation (fixed so hashes are reproducible) */
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /** Keys for X stones on the classic board, indexed by cell */
+    static final long[] X_KEYS;
+
+    /** Keys for O stones on the classic board, indexed by cell */
+    static final long[] O_KEYS;
+
+    static {
+        long[] keys = newKeys(2 * Bitboards.CELLS);
+        X_KEYS = Arrays.copyOfRange(keys, 0, Bitboards.CELLS);
+        O_KEYS = Arrays.copyOfRange(keys, Bitboards.CELLS, 2 * Bitboards.CELLS);
+    }
+
+    /** Utility class: prevent instantiation */
+    private Zobrist() {}
+
+    /**
+     * Generates the given number of random, non-zero keys.
+     */
+    public static long[] newKeys(int count) {
+        SplittableRandom rng = new SplittableRandom(SEED);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long key;
+            do {
+                key = rng.nextLong();
+            } while (key == 0);
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Computes the hash of a classic 3x3 position from scratch.
+     */
+    public static long hash(int xBits, int oBits) {
+        long hash = 0;
+        for (int cell = 0; cell < Bitboards.CELLS; cell++) {
+            int bit = 1 << cell;
+            if ((xBits & bit) != 0) hash ^= X_KEYS[cell];
+            if ((oBits & bit) != 0) hash ^= O_KEYS[cell];
+        }
+        return hash;
+    }
+}